@@ -0,0 +1,7 @@
+-- Extensions schema.sql relies on. Run once per database by a role allowed to create
+-- extensions, so the application's own role does not need that privilege to boot.
+-- docker-compose runs this on a new volume; on an existing one run it with psql:
+--   psql -U root -d postgres -f docker/initdb/01-extensions.sql
+
+-- Trigram operators behind the anime name index used by GET /anime/search.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,101 @@
+package com.example.benchmark;
+
+import com.example.configuration.CodecConfiguration;
+import com.example.domain.Anime;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Encoding and decoding {@link Anime} with the same Jackson codecs WebFlux uses for request
+ * and response bodies, for one anime and for a list of {@code listSize}, as JSON and as
+ * Smile. The payload sizes of both formats are printed on setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeJsonBenchmark {
+
+    private static final ResolvableType ANIME = ResolvableType.forClass(Anime.class);
+    private static final ResolvableType ANIME_LIST = ResolvableType.forClassWithGenerics(List.class, Anime.class);
+
+    @Param({"100", "1000"})
+    public int listSize;
+
+    @Param({"json", "smile"})
+    public String format;
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private MediaType mediaType;
+    private AbstractJackson2Encoder encoder;
+    private AbstractJackson2Decoder decoder;
+    private Anime anime;
+    private List<Anime> animes;
+    private byte[] animeJson;
+    private byte[] animesJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper;
+        if (format.equals("smile")) {
+            objectMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+            mediaType = CodecConfiguration.APPLICATION_SMILE;
+            encoder = new Jackson2SmileEncoder(objectMapper, mediaType);
+            decoder = new Jackson2SmileDecoder(objectMapper, mediaType);
+        } else {
+            objectMapper = Jackson2ObjectMapperBuilder.json().build();
+            mediaType = MediaType.APPLICATION_JSON;
+            encoder = new Jackson2JsonEncoder(objectMapper);
+            decoder = new Jackson2JsonDecoder(objectMapper);
+        }
+        anime = new Anime(42, "Fullmetal Alchemist: Brotherhood");
+        animes = LongStream.rangeClosed(1, listSize).mapToObj(id -> new Anime(id, "anime " + id)).toList();
+        animeJson = objectMapper.writeValueAsBytes(anime);
+        animesJson = objectMapper.writeValueAsBytes(animes);
+        System.out.printf("%n%s payload: one anime %d bytes, %d anime %d bytes%n",
+                format, animeJson.length, listSize, animesJson.length);
+    }
+
+    @Benchmark
+    public int encodeOne() {
+        return encode(anime, ANIME).readableByteCount();
+    }
+
+    @Benchmark
+    public int encodeList() {
+        return encode(animes, ANIME_LIST).readableByteCount();
+    }
+
+    @Benchmark
+    public Object decodeOne() {
+        return decoder.decode(bufferFactory.wrap(animeJson), ANIME, mediaType, Map.of());
+    }
+
+    @Benchmark
+    public Object decodeList() {
+        return decoder.decode(bufferFactory.wrap(animesJson), ANIME_LIST, mediaType, Map.of());
+    }
+
+    private DataBuffer encode(Object value, ResolvableType type) {
+        return encoder.encodeValue(value, bufferFactory, type, mediaType, Map.of());
+    }
+}
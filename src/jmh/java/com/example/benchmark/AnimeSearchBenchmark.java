@@ -0,0 +1,92 @@
+package com.example.benchmark;
+
+import com.example.domain.Anime;
+import com.example.repository.AnimeRepository;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search through the {@code pg_trgm} index, for a prefix and for a substring in the
+ * middle of the name, against what the UI does today: stream the whole table and filter
+ * it on the client. Needs the same Postgres as {@link AnimeListingBenchmark}; rows go to
+ * a separate {@code anime_search_bench} schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeSearchBenchmark {
+
+    static final String SCHEMA = "anime_search_bench";
+    static final int LIMIT = 20;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private ConnectionPool pool;
+    private AnimeRepository repository;
+    private String prefix;
+    private String substring;
+
+    @Setup
+    public void setUp() {
+        DatabaseClient admin = DatabaseClient.create(ConnectionFactories.get(AnimeListingBenchmark.URL));
+        admin.sql("CREATE SCHEMA IF NOT EXISTS " + SCHEMA).then().block();
+        admin.sql("CREATE EXTENSION IF NOT EXISTS pg_trgm").then().block();
+
+        pool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(AnimeListingBenchmark.URL + "?schema=" + SCHEMA))
+                .maxSize(4)
+                .build());
+        DatabaseClient client = DatabaseClient.create(pool);
+        client.sql("CREATE TABLE IF NOT EXISTS anime (id BIGSERIAL PRIMARY KEY, name VARCHAR(255) NOT NULL, "
+                + "version BIGINT NOT NULL DEFAULT 1)")
+                .then().block();
+        client.sql("DROP INDEX IF EXISTS anime_name_trgm_idx").then().block();
+        client.sql("TRUNCATE anime RESTART IDENTITY").then().block();
+        client.sql("INSERT INTO anime (name) SELECT 'Anime ' || g || ' ' || md5(g::text) FROM generate_series(1, $1) g")
+                .bind(0, rows)
+                .then().block();
+        client.sql("CREATE INDEX anime_name_trgm_idx ON anime USING gin (name public.gin_trgm_ops)").then().block();
+        client.sql("ANALYZE anime").then().block();
+
+        repository = AnimeListingBenchmark.repository(pool);
+        prefix = "anime " + rows / 3;
+        substring = client.sql("SELECT substr(md5($1::text), 9, 6)")
+                .bind(0, rows / 2)
+                .map(row -> row.get(0, String.class))
+                .one().block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    public Long indexedPrefix() {
+        return repository.search(prefix, LIMIT).count().block();
+    }
+
+    @Benchmark
+    public Long indexedSubstring() {
+        return repository.search(substring, LIMIT).count().block();
+    }
+
+    @Benchmark
+    public Long clientSideSubstring() {
+        return repository.streamAll(256)
+                .map(Anime::getName)
+                .filter(name -> name.toLowerCase(Locale.ROOT).contains(substring))
+                .count()
+                .block();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.benchmark;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.Anime;
+import com.example.domain.AnimeLookup;
+import com.example.domain.AnimePage;
+import com.example.domain.AnimeSuggestion;
+import com.example.domain.BatchResult;
+import com.example.service.AnimeChangeFeed;
+import com.example.service.AnimeCache;
+import com.example.service.AnimeNameIndex;
+import com.example.service.AnimeReadCoalescer;
+import com.example.service.AnimeResponseCache;
+import com.example.service.AnimeService;
+import com.example.service.RepositoryConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.reactive.TransactionCallback;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * {@link AnimeService} pipelines, including the id cache and the per-method timers, over an
+ * in-memory repository. The numbers are the service's own overhead per call. The
+ * {@code ...AndEncode} and {@code ...Encoded...} pairs add the JSON body a controller
+ * writes, encoded per call versus taken from the response cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeServiceBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final ResolvableType ANIME = ResolvableType.forClass(Anime.class);
+    private static final ResolvableType ANIME_LIST = ResolvableType.forClassWithGenerics(List.class, Anime.class);
+
+    private static final TransactionalOperator NO_TRANSACTION = new TransactionalOperator() {
+        @Override
+        public <T> Mono<T> transactional(Mono<T> mono) {
+            return mono;
+        }
+
+        @Override
+        public <T> Flux<T> transactional(Flux<T> flux) {
+            return flux;
+        }
+
+        @Override
+        public <T> Flux<T> execute(TransactionCallback<T> action) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Param({"100"})
+    public int batchSize;
+
+    private AnimeService service;
+    private AnimeCache cache;
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(Jackson2ObjectMapperBuilder.json().build());
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+    private List<Long> ids;
+    private List<Anime> renamed;
+    private List<Anime> newAnime;
+
+    @Setup
+    public void setUp() {
+        AnimeProperties properties = new AnimeProperties();
+        cache = new AnimeCache(properties);
+        InMemoryAnimeRepository repository = new InMemoryAnimeRepository(ROWS);
+        AnimeNameIndex nameIndex = new AnimeNameIndex();
+        nameIndex.rebuild(repository.streamAll(0)).block();
+        service = new AnimeService(repository, properties, NO_TRANSACTION, cache, nameIndex,
+                new AnimeChangeFeed(properties), new AnimeResponseCache(properties, ServerCodecConfigurer.create()),
+                new AnimeReadCoalescer(new SimpleMeterRegistry()),
+                new RepositoryConcurrencyLimiter(properties, new SimpleMeterRegistry()), new SimpleMeterRegistry());
+        ids = LongStream.rangeClosed(1, batchSize).boxed().toList();
+        renamed = ids.stream().map(id -> new Anime(id, "renamed " + id)).toList();
+        newAnime = ids.stream().map(id -> new Anime(0, "new " + id)).toList();
+    }
+
+    @Benchmark
+    public Anime findByIdCached() {
+        return service.findById(42).block();
+    }
+
+    @Benchmark
+    public Anime findByIdUncached() {
+        cache.invalidate(42);
+        return service.findById(42).block();
+    }
+
+    @Benchmark
+    public int findByIdAndEncode() {
+        return encoder.encodeValue(service.findById(42).block(), bufferFactory, ANIME, MediaType.APPLICATION_JSON, Map.of())
+                .readableByteCount();
+    }
+
+    @Benchmark
+    public int findEncodedById() {
+        return service.findEncodedById(42, MediaType.APPLICATION_JSON).block().wrap(bufferFactory).readableByteCount();
+    }
+
+    @Benchmark
+    public AnimePage getPage() {
+        return service.getPage(ROWS / 2L, batchSize).block();
+    }
+
+    @Benchmark
+    public int getPageAndEncode() {
+        return encoder.encodeValue(service.getPage(ROWS / 2L, batchSize).block().content(), bufferFactory, ANIME_LIST,
+                        MediaType.APPLICATION_JSON, Map.of())
+                .readableByteCount();
+    }
+
+    @Benchmark
+    public int getEncodedPage() {
+        return service.getEncodedPage(ROWS / 2L, batchSize, MediaType.APPLICATION_JSON).block().wrap(bufferFactory)
+                .readableByteCount();
+    }
+
+    @Benchmark
+    public List<AnimeSuggestion> suggest() {
+        return service.suggest("anime 42", null).block();
+    }
+
+    @Benchmark
+    public AnimeLookup findByIds() {
+        return service.findByIds(ids).block();
+    }
+
+    @Benchmark
+    public BatchResult updateAll() {
+        return service.updateAll(renamed).block();
+    }
+
+    @Benchmark
+    public Long saveAll() {
+        return service.saveAllAnime(newAnime).count().block();
+    }
+
+    @Benchmark
+    public Long ingest() {
+        return service.ingest(Flux.fromIterable(newAnime)).count().block();
+    }
+}
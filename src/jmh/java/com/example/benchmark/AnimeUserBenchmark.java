@@ -0,0 +1,40 @@
+package com.example.benchmark;
+
+import com.example.domain.AnimeUser;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnimeUser#getAuthorities()}, called on every authorization check, and the
+ * authority parsing done once when a user row is loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnimeUserBenchmark {
+
+    private static final String AUTHORITIES = "ROLE_ADMIN,ROLE_USER";
+
+    private AnimeUser user;
+
+    @Setup
+    public void setUp() {
+        user = loadUser();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return user.getAuthorities();
+    }
+
+    @Benchmark
+    public AnimeUser loadUser() {
+        return new AnimeUser(1, "Moon", "moon", "{bcrypt}hash", AUTHORITIES);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.benchmark;
+
+import com.example.configuration.AnimeProperties;
+import com.example.service.TokenService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request authentication cost of HTTP Basic (user lookup plus BCrypt check) against a
+ * signed bearer token. The user store is in memory, so the Basic numbers are a best case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class AuthenticationBenchmark {
+
+    private ReactiveAuthenticationManager basic;
+    private TokenService tokenService;
+    private Authentication credentials;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder encoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        basic = new UserDetailsRepositoryReactiveAuthenticationManager(new MapReactiveUserDetailsService(
+                User.withUsername("moon").password(encoder.encode("secret")).roles("USER", "ADMIN").build()));
+        credentials = UsernamePasswordAuthenticationToken.unauthenticated("moon", "secret");
+
+        AnimeProperties properties = new AnimeProperties();
+        properties.getSecurity().getToken().setSecret("0123456789abcdef0123456789abcdef");
+        tokenService = new TokenService(properties);
+        token = tokenService.issue(basic.authenticate(credentials).block()).accessToken();
+    }
+
+    @Benchmark
+    public Authentication basicAuthentication() {
+        return basic.authenticate(credentials).block();
+    }
+
+    @Benchmark
+    public Authentication tokenAuthentication() {
+        return tokenService.verify(token).orElseThrow();
+    }
+}
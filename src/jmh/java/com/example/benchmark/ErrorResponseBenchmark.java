@@ -0,0 +1,76 @@
+package com.example.benchmark;
+
+import com.example.exception.CustomAttributes;
+import com.example.exception.GlobalExceptionHandler;
+import com.example.exception.StacklessResponseStatusException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering an error through {@link GlobalExceptionHandler}, which every 404 from
+ * {@code findById} goes through: with a new stackless exception per request as the service
+ * throws it, with a new exception that fills in its stack trace, with one reused exception
+ * to isolate the cost of the trace, and with {@code ?trace=true}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private GenericApplicationContext context;
+    private GlobalExceptionHandler handler;
+    private ResponseStatusException notFound;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new GenericApplicationContext();
+        context.refresh();
+        handler = new GlobalExceptionHandler(new CustomAttributes(), new WebProperties.Resources(), context,
+                ServerCodecConfigurer.create());
+        handler.afterPropertiesSet();
+        notFound = new ResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HttpStatusCode notFound() {
+        return render("/anime/42", new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+    }
+
+    @Benchmark
+    public HttpStatusCode notFoundWithStackTrace() {
+        return render("/anime/42", new ResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+    }
+
+    @Benchmark
+    public HttpStatusCode notFoundReusedException() {
+        return render("/anime/42", notFound);
+    }
+
+    @Benchmark
+    public HttpStatusCode notFoundWithTrace() {
+        return render("/anime/42?trace=true", notFound);
+    }
+
+    private HttpStatusCode render(String uri, Throwable error) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+        handler.handle(exchange, error).block();
+        return exchange.getResponse().getStatusCode();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.benchmark;
+
+import com.example.domain.Anime;
+import com.example.repository.AnimeRepository;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link AnimeRepository} over a sorted map, so service benchmarks measure the reactive
+ * pipelines rather than Postgres. Inserted rows get ids but are not kept, which lets write
+ * benchmarks run for any number of invocations in constant memory. Methods the service
+ * does not call throw {@link UnsupportedOperationException}.
+ */
+class InMemoryAnimeRepository implements AnimeRepository {
+
+    private final NavigableMap<Long, Anime> rows = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    InMemoryAnimeRepository(int size) {
+        for (long id = 1; id <= size; id++) {
+            rows.put(id, new Anime(id, "anime " + id, 1));
+        }
+        sequence.set(size);
+    }
+
+    @Override
+    public Mono<Anime> findById(long id) {
+        return Mono.justOrEmpty(rows.get(id));
+    }
+
+    @Override
+    public Flux<Anime> findPage(long after, int limit) {
+        return Flux.fromIterable(rows.tailMap(after, false).values()).take(limit, true);
+    }
+
+    @Override
+    public Mono<Integer> updateName(long id, String name) {
+        return Mono.fromSupplier(() -> rows.computeIfPresent(id, (key, anime) -> new Anime(id, name, anime.getVersion() + 1)) == null ? 0 : 1);
+    }
+
+    @Override
+    public Mono<Long> updateName(long id, String name, long version) {
+        return Mono.fromSupplier(() -> {
+            long[] updated = {0};
+            rows.computeIfPresent(id, (key, anime) -> {
+                if (anime.getVersion() != version) {
+                    return anime;
+                }
+                updated[0] = version + 1;
+                return new Anime(id, name, updated[0]);
+            });
+            return updated[0] == 0 ? null : updated[0];
+        });
+    }
+
+    @Override
+    public Mono<Integer> deleteAnimeById(long id) {
+        return Mono.fromSupplier(() -> rows.remove(id) == null ? 0 : 1);
+    }
+
+    @Override
+    public Flux<Anime> streamAll(int fetchSize) {
+        return Flux.fromIterable(rows.values());
+    }
+
+    @Override
+    public Flux<Anime> insertAll(List<Anime> animes) {
+        return Flux.fromIterable(animes).map(anime -> anime.withId(sequence.incrementAndGet()).withVersion(1));
+    }
+
+    @Override
+    public Flux<Anime> findByIds(List<Long> ids) {
+        return Flux.fromIterable(ids).mapNotNull(rows::get);
+    }
+
+    @Override
+    public Flux<Anime> search(String query, int limit) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        return Flux.fromIterable(rows.values())
+                .filter(anime -> anime.getName().toLowerCase(Locale.ROOT).contains(lowerQuery))
+                .take(limit);
+    }
+
+    @Override
+    public Flux<Long> updateNames(List<Anime> animes) {
+        return Flux.fromIterable(animes)
+                .filter(anime -> rows.computeIfPresent(anime.getId(), (id, row) -> anime) != null)
+                .map(Anime::getId);
+    }
+
+    @Override
+    public Flux<Long> deleteByIds(List<Long> ids) {
+        return Flux.fromIterable(ids).filter(id -> rows.remove(id) != null);
+    }
+
+    @Override
+    public <S extends Anime> Mono<S> save(S entity) {
+        return Mono.just(entity);
+    }
+
+    @Override
+    public Flux<Anime> findAll() {
+        return Flux.fromIterable(rows.values());
+    }
+
+    @Override
+    public Mono<Anime> findById(Long id) {
+        return findById(id.longValue());
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.just((long) rows.size());
+    }
+
+    @Override
+    public <S extends Anime> Flux<S> saveAll(Iterable<S> entities) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <S extends Anime> Flux<S> saveAll(Publisher<S> entityStream) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Anime> findById(Publisher<Long> id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Long id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Long> id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Flux<Anime> findAllById(Iterable<Long> ids) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Flux<Anime> findAllById(Publisher<Long> idStream) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Long id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Long> id) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> delete(Anime entity) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Long> ids) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Anime> entities) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Anime> entityStream) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of one endpoint. Outcomes are status codes, or the exception
+ * name when no response came back; anything but a 2xx counts as an error.
+ */
+class EndpointStats {
+
+    private final Histogram latency = new ConcurrentHistogram(3);
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    void record(String outcome, boolean error, long nanos) {
+        latency.recordValue(nanos);
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    void addTo(EndpointStats total) {
+        total.latency.add(latency);
+        total.errors.add(errors.sum());
+        outcomes.forEach((outcome, count) ->
+                total.outcomes.computeIfAbsent(outcome, key -> new LongAdder()).add(count.sum()));
+    }
+
+    Report report(double seconds) {
+        long requests = latency.getTotalCount();
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        return new Report(requests, errors.sum(), requests == 0 ? 0 : (double) errors.sum() / requests,
+                requests / seconds, counts, new Latency(
+                millis(latency.getValueAtPercentile(50)),
+                millis(latency.getValueAtPercentile(90)),
+                millis(latency.getValueAtPercentile(99)),
+                millis(latency.getValueAtPercentile(99.9)),
+                millis(latency.getMaxValue()),
+                latency.getMean() / TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    record Report(long requests, long errors, double errorRate, double throughput, Map<String, Long> outcomes,
+                  Latency latencyMillis) {
+    }
+
+    record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+    }
+}
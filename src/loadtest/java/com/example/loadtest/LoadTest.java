@@ -0,0 +1,259 @@
+package com.example.loadtest;
+
+import com.example.SpringWebFluxPracticeApplication;
+import com.example.domain.AccessToken;
+import com.example.domain.Anime;
+import com.example.repository.AnimeRepository;
+import com.example.service.AnimeNameIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Boots the application on a random port against an embedded Postgres and drives a
+ * weighted mix of requests at a fixed rate, with at most {@code concurrency} in flight.
+ * Prints a summary and writes throughput, latency percentiles and error rates per endpoint
+ * as JSON. The mix names are {@code get}, {@code page}, {@code lookup}, {@code search},
+ * {@code suggest}, {@code create}, {@code update} and {@code batch}. The tables come from the application's
+ * schema.sql, once the extensions in docker/initdb are created. Embedded Postgres refuses
+ * to start as root.
+ *
+ * <pre>mvn -Pload-test test-compile exec:exec -Dload.args="--rate=2000 --concurrency=128 --duration=60s"</pre>
+ */
+public class LoadTest {
+
+    private static final String USERNAME = "load-test";
+    private static final String PASSWORD = "load-test";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final LoadTestOptions options;
+    private final Map<String, Request> requests;
+    private final Request[] weightedRequests;
+    private final AtomicLong created = new AtomicLong();
+
+    LoadTest(LoadTestOptions options) {
+        this.options = options;
+        this.requests = requests();
+        this.weightedRequests = options.mix().entrySet().stream()
+                .flatMap(weight -> IntStream.range(0, weight.getValue()).mapToObj(i -> requestNamed(weight.getKey())))
+                .toArray(Request[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            createExtensions(postgres);
+            try (ConfigurableApplicationContext application = new SpringApplicationBuilder(SpringWebFluxPracticeApplication.class)
+                    .run("--server.port=0",
+                            "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + postgres.getPort() + "/postgres",
+                            "--spring.r2dbc.username=postgres",
+                            "--spring.r2dbc.password=",
+                            "--anime.rate-limit.enabled=false",
+                            "--logging.level.root=warn")) {
+                new LoadTest(options).run(application);
+            }
+        }
+    }
+
+    /** Runs the same extension script docker-compose runs on a new database, as its superuser. */
+    private static void createExtensions(EmbeddedPostgres postgres) throws Exception {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(Files.readString(Path.of("docker/initdb/01-extensions.sql")));
+        }
+    }
+
+    void run(ConfigurableApplicationContext application) throws Exception {
+        seed(application.getBean(DatabaseClient.class));
+        application.getBean(AnimeNameIndex.class)
+                .rebuild(application.getBean(AnimeRepository.class).streamAll(1000))
+                .block();
+        int port = ((ReactiveWebServerApplicationContext) application).getWebServer().getPort();
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(options.concurrency())
+                .pendingAcquireMaxCount(-1)
+                .build();
+        try {
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port)
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                    .build();
+            String token = client.post().uri("/auth/token")
+                    .headers(headers -> headers.setBasicAuth(USERNAME, PASSWORD))
+                    .retrieve()
+                    .bodyToMono(AccessToken.class)
+                    .map(AccessToken::accessToken)
+                    .block();
+            WebClient authenticated = client.mutate()
+                    .defaultHeaders(headers -> headers.setBearerAuth(token))
+                    .build();
+
+            System.out.printf("Warming up for %s%n", options.warmup());
+            drive(authenticated, options.warmup(), newStats(), new LongAdder());
+
+            System.out.printf("Sending %d requests/s with at most %d in flight for %s%n",
+                    options.rate(), options.concurrency(), options.duration());
+            Map<String, EndpointStats> stats = newStats();
+            LongAdder dropped = new LongAdder();
+            long start = System.nanoTime();
+            drive(authenticated, options.duration(), stats, dropped);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report(stats, dropped.sum(), seconds);
+        } finally {
+            connections.dispose();
+        }
+    }
+
+    private void drive(WebClient client, Duration duration, Map<String, EndpointStats> stats, LongAdder dropped) {
+        Flux.interval(Duration.ofNanos(1_000_000_000L / options.rate()))
+                .take(duration)
+                .onBackpressureDrop(tick -> dropped.increment())
+                .flatMap(tick -> send(client, weightedRequests[ThreadLocalRandom.current().nextInt(weightedRequests.length)],
+                        stats), options.concurrency())
+                .blockLast();
+    }
+
+    private Mono<Void> send(WebClient client, Request request, Map<String, EndpointStats> stats) {
+        EndpointStats endpoint = stats.get(request.endpoint());
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return request.spec().apply(client)
+                    .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode()))
+                    .timeout(REQUEST_TIMEOUT)
+                    .doOnNext(status -> endpoint.record(String.valueOf(status.value()), !status.is2xxSuccessful(),
+                            System.nanoTime() - start))
+                    .onErrorResume(error -> {
+                        endpoint.record(error.getClass().getSimpleName(), true, System.nanoTime() - start);
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    private Map<String, EndpointStats> newStats() {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        options.mix().keySet().forEach(name -> stats.put(requestNamed(name).endpoint(), new EndpointStats()));
+        return stats;
+    }
+
+    private void report(Map<String, EndpointStats> stats, long dropped, double seconds) throws Exception {
+        EndpointStats total = new EndpointStats();
+        Map<String, EndpointStats.Report> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> {
+            endpointStats.addTo(total);
+            endpoints.put(endpoint, endpointStats.report(seconds));
+        });
+        Report report = new Report(options, seconds, dropped, endpoints, total.report(seconds));
+
+        System.out.printf("%-28s %9s %9s %9s %9s %9s %8s%n", "endpoint", "requests", "req/s", "p50 ms", "p99 ms",
+                "max ms", "errors");
+        endpoints.forEach((endpoint, result) -> print(endpoint, result));
+        print("total", report.total());
+        System.out.printf("dropped (no free slot): %d%n", dropped);
+
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .featuresToEnable(SerializationFeature.INDENT_OUTPUT)
+                .build();
+        File file = new File(options.report());
+        objectMapper.writeValue(file, report);
+        System.out.printf("Report written to %s%n", file.getAbsolutePath());
+    }
+
+    private static void print(String endpoint, EndpointStats.Report result) {
+        System.out.printf("%-28s %9d %9.1f %9.2f %9.2f %9.2f %8d%n", endpoint, result.requests(), result.throughput(),
+                result.latencyMillis().p50(), result.latencyMillis().p99(), result.latencyMillis().max(),
+                result.errors());
+    }
+
+    private void seed(DatabaseClient database) {
+        database.sql("INSERT INTO anime (name) SELECT 'anime ' || g FROM generate_series(1, $1) g")
+                .bind(0, options.seedRows())
+                .then()
+                .then(database.sql("INSERT INTO anime_user (name, username, password, authorities) VALUES ($1, $2, $3, $4)")
+                        .bind(0, "Load Test")
+                        .bind(1, USERNAME)
+                        .bind(2, PasswordEncoderFactories.createDelegatingPasswordEncoder().encode(PASSWORD))
+                        .bind(3, "ROLE_USER,ROLE_ADMIN")
+                        .then())
+                .block();
+    }
+
+    private Map<String, Request> requests() {
+        Map<String, Request> requests = new LinkedHashMap<>();
+        requests.put("get", new Request("GET /anime/{id}", client -> client.get()
+                .uri("/anime/{id}", randomId())));
+        requests.put("page", new Request("GET /anime?after&limit", client -> client.get()
+                .uri("/anime?after={after}&limit=100", randomId())));
+        requests.put("lookup", new Request("GET /anime?ids", client -> client.get()
+                .uri(uri -> uri.path("/anime").queryParam("ids", randomIds(20)).build())));
+        requests.put("search", new Request("GET /anime/search?q", client -> client.get()
+                .uri("/anime/search?q={q}", "anime " + randomId())));
+        requests.put("suggest", new Request("GET /anime/suggest?prefix", client -> client.get()
+                .uri("/anime/suggest?prefix={prefix}", "anime " + randomId() / 10)));
+        requests.put("create", new Request("POST /anime", client -> client.post()
+                .uri("/anime")
+                .bodyValue(new Anime(0, "created " + created.incrementAndGet()))));
+        requests.put("update", new Request("PUT /anime", client -> client.put()
+                .uri("/anime")
+                .bodyValue(new Anime(randomId(), "updated " + System.nanoTime()))));
+        requests.put("batch", new Request("POST /anime/batch", client -> client.post()
+                .uri("/anime/batch")
+                .bodyValue(IntStream.range(0, options.batchSize())
+                        .mapToObj(i -> new Anime(0, "batch " + created.incrementAndGet()))
+                        .toList())));
+        return requests;
+    }
+
+    private Request requestNamed(String name) {
+        Request request = requests.get(name);
+        if (request == null) {
+            throw new IllegalArgumentException("Unknown request " + name + ", expected one of " + requests.keySet());
+        }
+        return request;
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, options.seedRows() + 1);
+    }
+
+    private List<Long> randomIds(int count) {
+        return IntStream.range(0, count).mapToObj(i -> randomId()).toList();
+    }
+
+    private record Request(String endpoint, Function<WebClient, WebClient.RequestHeadersSpec<?>> spec) {
+    }
+
+    private record Report(LoadTestOptions options, double seconds, long droppedRequests,
+                          Map<String, EndpointStats.Report> endpoints, EndpointStats.Report total) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings of one load test run, read from {@code --name=value} arguments.
+ *
+ * @param rate        requests started per second, whatever the latency
+ * @param concurrency most requests in flight; ticks that find no free slot are dropped and counted
+ * @param warmup      traffic sent before measuring, so the JIT, pools and caches are warm
+ * @param duration    measured traffic
+ * @param seedRows    anime rows in the table before the run
+ * @param batchSize   anime per {@code POST /anime/batch}
+ * @param mix         relative weight of each request kind, see {@link LoadTest}
+ * @param report      where the JSON report is written
+ */
+record LoadTestOptions(int rate, int concurrency, Duration warmup, Duration duration, int seedRows,
+                       int batchSize, Map<String, Integer> mix, String report) {
+
+    static final String DEFAULT_MIX = "get:60,page:10,lookup:10,create:10,update:5,batch:5";
+
+    static LoadTestOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(
+                Integer.parseInt(values.getOrDefault("rate", "500")),
+                Integer.parseInt(values.getOrDefault("concurrency", "64")),
+                DurationStyle.detectAndParse(values.getOrDefault("warmup", "10s")),
+                DurationStyle.detectAndParse(values.getOrDefault("duration", "30s")),
+                Integer.parseInt(values.getOrDefault("seed-rows", "10000")),
+                Integer.parseInt(values.getOrDefault("batch-size", "50")),
+                parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                values.getOrDefault("report", "load-test-report.json"));
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split(":");
+            weights.put(nameAndWeight[0], Integer.parseInt(nameAndWeight[1]));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "anime")
+public class AnimeProperties {
+
+    private Page page = new Page();
+    private Stream stream = new Stream();
+    private Batch batch = new Batch();
+    private Lookup lookup = new Lookup();
+    private Search search = new Search();
+    private Suggest suggest = new Suggest();
+    private Ingest ingest = new Ingest();
+    private Changes changes = new Changes();
+    private Cache cache = new Cache();
+    private ResponseCache responseCache = new ResponseCache();
+    private Security security = new Security();
+    private RateLimit rateLimit = new RateLimit();
+    private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+    private R2dbc r2dbc = new R2dbc();
+    private Blocking blocking = new Blocking();
+
+    @Data
+    public static class Page {
+        /** Page size used when the client does not send a limit. */
+        private int defaultLimit = 100;
+        /** Largest page the server will return, whatever the client asks for. */
+        private int maxLimit = 500;
+        /** Longest a listing keeps its ETag when no write goes through this instance; bounds staleness from other writers. */
+        private Duration versionTtl = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class Stream {
+        /** Rows requested from Postgres per round trip and from upstream per limitRate batch. */
+        private int fetchSize = 256;
+    }
+
+    @Data
+    public static class Batch {
+        /** Rows written per multi-row INSERT statement. */
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class Lookup {
+        /** Most ids accepted by one multi-get or batch delete request. */
+        private int maxIds = 1000;
+    }
+
+    @Data
+    public static class Search {
+        /** Results returned when the client does not send a limit. */
+        private int defaultLimit = 20;
+        /** Most results returned by one search, whatever the client asks for. */
+        private int maxLimit = 100;
+        /** Shortest query accepted; the trigram index cannot narrow anything shorter than a trigram. */
+        private int minLength = 3;
+    }
+
+    @Data
+    public static class Suggest {
+        /** Suggestions returned when the client does not send a limit. */
+        private int defaultLimit = 10;
+        /** Most suggestions returned for one prefix, whatever the client asks for. */
+        private int maxLimit = 50;
+    }
+
+    @Data
+    public static class Ingest {
+        /** Rows committed per transaction by a streaming ingest. */
+        private int chunkSize = 1000;
+        /** Longest time a partially filled chunk waits before it is committed. */
+        private Duration maxWait = Duration.ofMillis(500);
+        /** Times a chunk refused because the database is busy is tried again before the upload fails with 503. */
+        private int busyRetries = 5;
+        /** Wait before the first retry of a refused chunk; it doubles with each retry after that. */
+        private Duration busyBackoff = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Changes {
+        /** Recent changes kept for clients that reconnect with the id of the last one they saw. */
+        private int historySize = 1024;
+        /** Changes held for one subscriber that is not keeping up, before slow-consumer applies. */
+        private int bufferSize = 256;
+        /** What happens to a subscriber whose buffer is full. */
+        private SlowConsumer slowConsumer = SlowConsumer.DISCONNECT;
+        /** Time between comment lines sent on an idle feed, so proxies keep it open; the first goes out on connect. */
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        public enum SlowConsumer {
+            /** Its oldest buffered changes are dropped; the gap shows in the sequence numbers. */
+            DROP_OLDEST,
+            /** Its stream is ended so it reconnects and replays from the history. */
+            DISCONNECT
+        }
+    }
+
+    @Data
+    public static class Cache {
+        /** Most anime ids kept in the findById cache. */
+        private long maximumSize = 10_000;
+        /** How long a found anime stays cached. */
+        private Duration ttl = Duration.ofMinutes(5);
+        /** How long a miss stays cached. */
+        private Duration negativeTtl = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class ResponseCache {
+        /** Most encoded anime bodies kept, counting each media type separately. */
+        private long maximumSize = 20_000;
+        /** Most encoded listing pages kept. */
+        private long maximumPages = 256;
+        /** How long an encoded body stays cached. */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class R2dbc {
+        /** Prepared statements cached per connection; -1 caches every statement, 0 disables the cache. */
+        private int preparedStatementCacheQueries = 256;
+    }
+
+    @Data
+    public static class Blocking {
+        /** What BlockHound does about a blocking call on a non-blocking thread; read once at startup. */
+        private Mode mode = Mode.OFF;
+        /** Shortest time between two logged stacks for the same blocking method. */
+        private Duration logInterval = Duration.ofMinutes(1);
+
+        public enum Mode {
+            /** BlockHound is not installed. */
+            OFF,
+            /** Blocking calls are counted and logged, and the caller carries on. */
+            REPORT,
+            /** Blocking calls are counted and logged, then fail with BlockingOperationError. */
+            STRICT
+        }
+    }
+
+    @Data
+    public static class RateLimit {
+        /** Whether authenticated requests are rate limited at all. */
+        private boolean enabled = true;
+        /** A bucket unused for this long is dropped; the client comes back with a full one. */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        /** Most buckets kept, one per principal and route; the least recently used go first. */
+        private long maximumBuckets = 100_000;
+        /**
+         * Limits of GET and HEAD routes by role; a principal gets the highest of its roles. Unlisted
+         * roles are not limited. The defaults live in the packaged application.yml. Other property
+         * sources are merged into them role by role, so they can change a default role's limit
+         * but not remove the role.
+         */
+        private Map<String, Limit> reads = new LinkedHashMap<>();
+        /** Limits of the other routes by role, as for {@code reads}. */
+        private Map<String, Limit> writes = new LinkedHashMap<>();
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        /** Requests a client can send at once before it is held to the rate. */
+        private int capacity;
+        /** Requests per second a client can keep sending. */
+        private double ratePerSecond;
+    }
+
+    @Data
+    public static class ConcurrencyLimit {
+        /** Whether database calls are admitted against an adaptive in-flight limit at all. */
+        private boolean enabled = true;
+        /** Limit to start from, before any call has been measured. */
+        private int initialLimit = 20;
+        /** Lowest the limit shrinks to, however slow the database gets. */
+        private int minLimit = 4;
+        /** Highest the limit grows to, however fast the database answers. */
+        private int maxLimit = 200;
+    }
+
+    @Data
+    public static class Security {
+        private UserCache userCache = new UserCache();
+        private Token token = new Token();
+    }
+
+    @Data
+    public static class UserCache {
+        /** Most users kept in the authentication cache. */
+        private long maximumSize = 1_000;
+        /** How long a loaded user is trusted before it is read again. */
+        private Duration ttl = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Token {
+        /** HMAC key, at least 32 bytes. A random key is used when it is not set. */
+        private String secret;
+        /** How long an issued token is accepted. */
+        private Duration ttl = Duration.ofMinutes(15);
+    }
+}
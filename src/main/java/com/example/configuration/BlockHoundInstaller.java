@@ -0,0 +1,58 @@
+package com.example.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationListener;
+import reactor.blockhound.BlockHound;
+
+import java.util.Optional;
+
+/**
+ * Installs BlockHound as soon as the environment is ready, before any scheduler or Netty
+ * thread exists, when {@code anime.blocking.mode} is not {@code off}. Registered in
+ * {@code META-INF/spring.factories} so tests booting the application get it too. BlockHound
+ * can only be installed once per JVM; later applications keep the first reporter.
+ */
+@Slf4j
+public class BlockHoundInstaller implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    private static volatile BlockingCallReporter reporter;
+
+    static Optional<BlockingCallReporter> reporter() {
+        return Optional.ofNullable(reporter);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        AnimeProperties.Blocking blocking = Binder.get(event.getEnvironment())
+                .bind("anime.blocking", AnimeProperties.Blocking.class)
+                .orElseGet(AnimeProperties.Blocking::new);
+        if (blocking.getMode() != AnimeProperties.Blocking.Mode.OFF) {
+            install(blocking);
+        }
+    }
+
+    private static synchronized void install(AnimeProperties.Blocking blocking) {
+        if (reporter != null) {
+            return;
+        }
+        boolean strict = blocking.getMode() == AnimeProperties.Blocking.Mode.STRICT;
+        BlockingCallReporter candidate = new BlockingCallReporter(strict, blocking.getLogInterval());
+        try {
+            BlockHound.install(builder -> builder
+                    .allowBlockingCallsInside("java.util.UUID", "randomUUID")
+                    .allowBlockingCallsInside("java.io.FilterInputStream", "read")
+                    .allowBlockingCallsInside(BlockingCallReporter.class.getName(), "log")
+                    .blockingMethodCallback(candidate));
+        } catch (RuntimeException e) {
+            if (strict) {
+                throw e;
+            }
+            log.error("BlockHound could not be installed, blocking calls will not be reported", e);
+            return;
+        }
+        reporter = candidate;
+        log.info("BlockHound installed in {} mode", blocking.getMode());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.blockhound.BlockingMethod;
+import reactor.blockhound.BlockingOperationError;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * BlockHound callback that counts every blocking call on a non-blocking thread per blocked
+ * method, logs its stack at most once per log interval, and in strict mode then fails the
+ * call as BlockHound does by default. Calls made before a registry is bound are counted
+ * too and show up once it is.
+ */
+@Slf4j
+class BlockingCallReporter implements Consumer<BlockingMethod>, MeterBinder {
+
+    static final String METRIC_NAME = "reactor.blocking.calls";
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+    private final boolean strict;
+    private final long logIntervalNanos;
+    private volatile MeterRegistry registry;
+
+    BlockingCallReporter(boolean strict, Duration logInterval) {
+        this.strict = strict;
+        this.logIntervalNanos = logInterval.toNanos();
+    }
+
+    @Override
+    public void accept(BlockingMethod method) {
+        String name = method.getClassName().replace('/', '.') + "." + method.getName();
+        Site site = sites.computeIfAbsent(name, this::register);
+        site.calls.increment();
+        if (site.shouldLog(System.nanoTime())) {
+            log(name, method);
+        }
+        if (strict) {
+            throw new BlockingOperationError(method);
+        }
+    }
+
+    /**
+     * Allowed to block in {@link BlockHoundInstaller}, so the appender writing this entry
+     * does not report itself.
+     */
+    void log(String name, BlockingMethod method) {
+        log.warn("Blocking call to {} on non-blocking thread {}", name, Thread.currentThread().getName(),
+                new BlockingOperationError(method));
+    }
+
+    long count(String name) {
+        Site site = sites.get(name);
+        return site == null ? 0 : site.calls.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        sites.forEach((name, site) -> counter(registry, name, site));
+    }
+
+    private Site register(String name) {
+        Site site = new Site(logIntervalNanos);
+        MeterRegistry current = registry;
+        if (current != null) {
+            counter(current, name, site);
+        }
+        return site;
+    }
+
+    private static void counter(MeterRegistry registry, String name, Site site) {
+        registry.more().counter(METRIC_NAME, Tags.of("method", name),
+                site.calls, LongAdder::doubleValue);
+    }
+
+    private static class Site {
+        private final LongAdder calls = new LongAdder();
+        private final AtomicLong nextLog;
+        private final long logIntervalNanos;
+
+        Site(long logIntervalNanos) {
+            this.logIntervalNanos = logIntervalNanos;
+            this.nextLog = new AtomicLong(System.nanoTime());
+        }
+
+        boolean shouldLog(long now) {
+            long next = nextLog.get();
+            return now - next >= 0 && nextLog.compareAndSet(next, now + logIntervalNanos);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary Smile bodies next to JSON, for service-to-service callers that send
+ * {@code Accept}/{@code Content-Type: application/x-jackson-smile}. The Smile codecs use
+ * the same Jackson settings as the JSON ones, so both formats carry the same fields, and
+ * they are registered on the {@code ServerCodecConfigurer} that controllers and
+ * {@code GlobalExceptionHandler} both write through.
+ */
+@Configuration
+public class CodecConfiguration {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    @Bean
+    CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder){
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        // Without explicit mime types these constructors fall back to the JSON ones.
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new SmileArrayEncoder(smileMapper));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, APPLICATION_SMILE));
+        };
+    }
+
+    /**
+     * Writes a {@code Flux} body as one Smile array. The stock encoder joins the elements
+     * with the textual JSON {@code [ , ]} bytes, which is not valid Smile; the anime
+     * endpoints returning a {@code Flux} are bounded, so collecting them first is cheap.
+     */
+    static final class SmileArrayEncoder extends Jackson2SmileEncoder {
+
+        SmileArrayEncoder(ObjectMapper mapper) {
+            super(mapper, APPLICATION_SMILE);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> input, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (input instanceof Mono) {
+                return super.encode(input, bufferFactory, elementType, mimeType, hints);
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(input)
+                    .collectList()
+                    .map(list -> encodeValue(list, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+@Configuration
+public class MetricsConfiguration {
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    /**
+     * Turns on Reactor Netty's connection, data and event-loop metrics. Numeric path
+     * segments are folded into {@code {id}} so every anime does not get its own uri tag.
+     */
+    @Bean
+    NettyServerCustomizer nettyMetricsCustomizer(){
+        return httpServer -> httpServer.metrics(true, uri -> NUMERIC_SEGMENT.matcher(uri).replaceAll("/{id}"));
+    }
+
+    @Bean
+    SchedulerMetrics schedulerMetrics(){
+        return new SchedulerMetrics();
+    }
+
+    /**
+     * Publishes {@code reactor.blocking.calls} when {@link BlockHoundInstaller} installed
+     * BlockHound for this JVM.
+     */
+    @Bean
+    MeterBinder blockingCallMetrics(){
+        return registry -> BlockHoundInstaller.reporter().ifPresent(reporter -> reporter.bindTo(registry));
+    }
+
+    /**
+     * Publishes {@code reactor.executor.*} metrics for the executors behind the Reactor
+     * schedulers created from now on, tagged with the scheduler they belong to.
+     */
+    static class SchedulerMetrics implements MeterBinder, DisposableBean {
+
+        private static final String DECORATOR_KEY = SchedulerMetrics.class.getName();
+
+        private final Map<String, AtomicInteger> executorsPerScheduler = new ConcurrentHashMap<>();
+
+        @Override
+        public void bindTo(MeterRegistry registry) {
+            Schedulers.setExecutorServiceDecorator(DECORATOR_KEY, (scheduler, executor) -> {
+                String schedulerName = Scannable.from(scheduler).name();
+                int index = executorsPerScheduler.computeIfAbsent(schedulerName, name -> new AtomicInteger())
+                        .getAndIncrement();
+                return ExecutorServiceMetrics.monitor(registry, executor, schedulerName + "-" + index, "reactor",
+                        Tags.of("scheduler", schedulerName));
+            });
+        }
+
+        @Override
+        public void destroy() {
+            Schedulers.removeExecutorServiceDecorator(DECORATOR_KEY);
+        }
+    }
+}
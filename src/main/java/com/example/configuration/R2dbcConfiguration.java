@@ -0,0 +1,38 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Driver options that {@code spring.r2dbc.*} does not cover, and an acquire-time timer
+ * next to the pool gauges Spring Boot already publishes as {@code r2dbc.pool.*}.
+ */
+@Configuration
+public class R2dbcConfiguration {
+
+    @Bean
+    ConnectionFactoryOptionsBuilderCustomizer postgresOptionsCustomizer(AnimeProperties properties){
+        return builder -> builder.option(PostgresqlConnectionFactoryProvider.PREPARED_STATEMENT_CACHE_QUERIES,
+                properties.getR2dbc().getPreparedStatementCacheQueries());
+    }
+
+    @Bean
+    static BeanPostProcessor connectionAcquireTimer(ObjectProvider<MeterRegistry> registry){
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionPool pool) {
+                    MeterRegistry meterRegistry = registry.getIfAvailable();
+                    return meterRegistry == null ? pool : new TimedConnectionPool(pool, beanName, meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per authenticated principal and route, with the limits of
+ * {@code anime.rate-limit} for the principal's roles. A request over the limit is answered
+ * 429 with {@code Retry-After} and an empty body, before any handler or database work.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full
+ * again (GCRA), so taking a token is one compare-and-set. Buckets live in a Caffeine map,
+ * which spreads concurrent access over its own striped tables and buffers, and are dropped
+ * after {@code idle-timeout} without use.
+ * <p>
+ * The route of a bucket is the most specific handler pattern the path matches, matched as
+ * request mapping does (decoded, without matrix parameters), so {@code GET /anime/1},
+ * {@code GET /anime/%32} and {@code GET /anime/3;x=1} share the {@code /anime/{id}} bucket.
+ * Paths no handler maps share one bucket per method, so made-up paths cannot mint buckets.
+ */
+public class RateLimitWebFilter implements WebFilter {
+
+    public static final String REJECTED_METRIC = "anime.ratelimit.rejected";
+    public static final String BUCKETS_METRIC = "anime.ratelimit.buckets";
+
+    private static final String UNMATCHED = "(unmatched)";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final AnimeProperties.RateLimit config;
+    private final List<PathPattern> routes;
+    private final Cache<BucketKey, AtomicLong> buckets;
+    private final LongSupplier nanoClock;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+
+    public RateLimitWebFilter(AnimeProperties.RateLimit config, Collection<PathPattern> routes, MeterRegistry registry) {
+        this(config, routes, registry, System::nanoTime);
+    }
+
+    RateLimitWebFilter(AnimeProperties.RateLimit config, Collection<PathPattern> routes, MeterRegistry registry,
+                       LongSupplier nanoClock) {
+        this.config = config;
+        this.routes = routes.stream().distinct().sorted(PathPattern.SPECIFICITY_COMPARATOR).toList();
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumBuckets())
+                .expireAfterAccess(config.getIdleTimeout())
+                .ticker(nanoClock::getAsLong)
+                .build();
+        this.readsRejected = rejectedCounter(registry, "read");
+        this.writesRejected = rejectedCounter(registry, "write");
+        Gauge.builder(BUCKETS_METRIC, buckets, cache -> {
+                    cache.cleanUp();
+                    return cache.estimatedSize();
+                })
+                .description("Rate limit buckets held, one per principal and route")
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!config.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(authentication -> authentication.isAuthenticated()
+                        && !(authentication instanceof AnonymousAuthenticationToken))
+                .map(authentication -> waitNanos(authentication, exchange.getRequest()))
+                .defaultIfEmpty(0L)
+                .flatMap(wait -> wait > 0 ? reject(exchange, wait) : chain.filter(exchange));
+    }
+
+    /** Nanoseconds until the request would be allowed, or 0 when it is allowed and a token was taken. */
+    private long waitNanos(Authentication authentication, ServerHttpRequest request) {
+        boolean read = isRead(request.getMethod());
+        AnimeProperties.Limit limit = highestLimit(authentication, read ? config.getReads() : config.getWrites());
+        if (limit == null) {
+            return 0;
+        }
+        long now = nanoClock.getAsLong();
+        AtomicLong fullAt = buckets.get(new BucketKey(authentication.getName(), route(request)), key -> new AtomicLong(now));
+        long wait = take(fullAt, limit, now);
+        if (wait > 0) {
+            (read ? readsRejected : writesRejected).increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Takes one token unless the bucket is empty. {@code fullAt} moves one interval later per
+     * request, and the request is allowed while it stays within {@code capacity} intervals of now.
+     */
+    static long take(AtomicLong fullAt, AnimeProperties.Limit limit, long now) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRatePerSecond());
+        long burst = interval * limit.getCapacity();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private String route(ServerHttpRequest request) {
+        PathContainer path = request.getPath().pathWithinApplication();
+        for (PathPattern route : routes) {
+            if (route.matches(path)) {
+                return request.getMethod().name() + " " + route.getPatternString();
+            }
+        }
+        return request.getMethod().name() + " " + UNMATCHED;
+    }
+
+    private static boolean isRead(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD;
+    }
+
+    private static AnimeProperties.Limit highestLimit(Authentication authentication, Map<String, AnimeProperties.Limit> limits) {
+        AnimeProperties.Limit highest = null;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String role = authority.getAuthority();
+            AnimeProperties.Limit limit = limits.get(role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role);
+            if (limit != null && (highest == null || limit.getRatePerSecond() > highest.getRatePerSecond())) {
+                highest = limit;
+            }
+        }
+        return highest;
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, long waitNanos) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1))));
+        return response.setComplete();
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String kind) {
+        return Counter.builder(REJECTED_METRIC)
+                .description("Requests answered 429 because the principal's bucket for the route was empty")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    private record BucketKey(String principal, String route) {
+    }
+}
@@ -1,27 +1,52 @@
 package com.example.configuration;
 
+import com.example.service.TokenService;
 import com.example.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.pattern.PathPattern;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
 
 @EnableWebFluxSecurity
 @EnableReactiveMethodSecurity
 @Configuration
 public class SecurityConfiguration {
 
+    private static final String BEARER_PREFIX = TokenService.TOKEN_TYPE + " ";
+
     @Bean
-    public SecurityWebFilterChain webFilterChain(ServerHttpSecurity httpSecurity){
+    public SecurityWebFilterChain webFilterChain(ServerHttpSecurity httpSecurity, TokenService tokenService,
+                                                 AnimeProperties properties, MeterRegistry meterRegistry,
+                                                 @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping){
         // @formatter: off
         return httpSecurity
                 .csrf().disable()
+                .addFilterAt(tokenAuthenticationFilter(tokenService), SecurityWebFiltersOrder.HTTP_BASIC)
+                .addFilterAfter(new RateLimitWebFilter(properties.getRateLimit(), routes(handlerMapping), meterRegistry),
+                        SecurityWebFiltersOrder.AUTHORIZATION)
                 .authorizeExchange()
+                .pathMatchers(HttpMethod.POST, "/auth/token").authenticated()
+                .pathMatchers(HttpMethod.POST, "/anime/lookup").hasRole("USER")
                 .pathMatchers(HttpMethod.POST, "/anime/**").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.PUT, "/anime/**").hasRole("ADMIN")
                 .pathMatchers(HttpMethod.DELETE, "/anime/**").hasRole("ADMIN")
@@ -36,6 +61,31 @@ public class SecurityConfiguration {
     }
 
 
+    /** The path patterns of every controller method, which rate limit buckets are keyed by. */
+    private static List<PathPattern> routes(RequestMappingHandlerMapping handlerMapping){
+        return handlerMapping.getHandlerMethods().keySet().stream()
+                .flatMap(info -> info.getPatternsCondition().getPatterns().stream())
+                .toList();
+    }
+
+    /**
+     * Authenticates {@code Authorization: Bearer} requests from the signed token alone, so
+     * they skip the user lookup and the password hash check done for HTTP Basic.
+     */
+    private AuthenticationWebFilter tokenAuthenticationFilter(TokenService tokenService){
+        AuthenticationWebFilter filter = new AuthenticationWebFilter((ReactiveAuthenticationManager) authentication ->
+                Mono.justOrEmpty(tokenService.verify((String) authentication.getCredentials()))
+                        .switchIfEmpty(Mono.error(() -> new BadCredentialsException("Invalid token"))));
+        filter.setServerAuthenticationConverter(exchange -> Mono
+                .justOrEmpty(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
+                .filter(header -> header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length()))
+                .map(header -> header.substring(BEARER_PREFIX.length()).trim())
+                .map(token -> new PreAuthenticatedAuthenticationToken(token, token)));
+        filter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(
+                new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return filter;
+    }
+
     @Bean
     ReactiveAuthenticationManager authenticationManager(UserService service){
         return new UserDetailsRepositoryReactiveAuthenticationManager(service);
@@ -0,0 +1,72 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records how long each {@link #create()} waits for a pooled connection in the
+ * {@code r2dbc.pool.acquire} timer, tagged with whether it got one, failed (e.g. timed
+ * out) or was cancelled while waiting. Implements {@link Wrapped} so the pool gauges still
+ * find the pool underneath.
+ */
+class TimedConnectionPool implements ConnectionFactory, Wrapped<ConnectionPool> {
+
+    static final String ACQUIRE_TIMER = "r2dbc.pool.acquire";
+
+    private final ConnectionPool pool;
+    private final Timer acquired;
+    private final Timer failed;
+    private final Timer cancelled;
+
+    TimedConnectionPool(ConnectionPool pool, String name, MeterRegistry registry) {
+        this.pool = pool;
+        this.acquired = acquireTimer(registry, name, "success");
+        this.failed = acquireTimer(registry, name, "error");
+        this.cancelled = acquireTimer(registry, name, "cancel");
+    }
+
+    @Override
+    public Mono<Connection> create() {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            AtomicBoolean delivered = new AtomicBoolean();
+            return pool.create()
+                    .doOnNext(connection -> delivered.set(true))
+                    .doFinally(signal -> sample.stop(delivered.get() ? acquired
+                            : signal == SignalType.ON_ERROR ? failed : cancelled));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return pool.getMetadata();
+    }
+
+    @Override
+    public ConnectionPool unwrap() {
+        return pool;
+    }
+
+    private static Timer acquireTimer(MeterRegistry registry, String name, String outcome) {
+        return Timer.builder(ACQUIRE_TIMER)
+                .description("Time spent waiting for a connection from the pool")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /** Called as the destroy method Spring Boot declares for its pool bean. */
+    public void dispose() {
+        pool.dispose();
+    }
+}
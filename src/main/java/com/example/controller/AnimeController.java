@@ -1,7 +1,17 @@
 package com.example.controller;
 
+import com.example.configuration.AnimeProperties;
+import com.example.configuration.CodecConfiguration;
 import com.example.domain.Anime;
+import com.example.domain.AnimeChange;
+import com.example.domain.AnimeLookup;
+import com.example.domain.AnimePage;
+import com.example.domain.AnimeSuggestion;
+import com.example.domain.BatchResult;
+import com.example.domain.IngestProgress;
+import com.example.exception.StacklessResponseStatusException;
 import com.example.repository.AnimeRepository;
+import com.example.service.AnimeResponseCache;
 import com.example.service.AnimeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
@@ -11,14 +21,24 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.server.NotAcceptableStatusException;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/anime")
@@ -28,19 +48,110 @@ import java.util.List;
 public class AnimeController {
     @Autowired
     private final AnimeService service;
+    private final AnimeProperties properties;
+    private final RequestedContentTypeResolver contentTypeResolver;
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "List of all Anime", tags = {"anime"}, security = @SecurityRequirement(name = "Basic Authentication"))
-    public Flux<Anime> listAll(){
-        return service.getAllAnimes();
+    public Mono<ResponseEntity<DataBuffer>> listAll(@RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Integer limit,
+                                                    ServerWebExchange exchange){
+        String catalogVersion = service.catalogVersion();
+        exchange.getResponse().getHeaders().setVary(List.of(HttpHeaders.ACCEPT));
+        if (exchange.checkNotModified(catalogVersion)) {
+            return Mono.empty();
+        }
+        return Mono.fromSupplier(() -> cachedBodyMediaType(exchange))
+                .flatMap(mediaType -> service.getEncodedPage(after, limit, mediaType)
+                        .map(encoded -> {
+                            AnimePage page = encoded.value();
+                            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                    .contentType(mediaType)
+                                    .eTag(catalogVersion);
+                            if (page.nextCursor() != null) {
+                                response.header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()))
+                                        .header(HttpHeaders.LINK, "</anime?after=" + page.nextCursor()
+                                                + "&limit=" + page.content().size() + ">; rel=\"next\"");
+                            }
+                            return response.body(encoded.wrap(exchange.getResponse().bufferFactory()));
+                        }));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream of all Anime, one JSON document per line", tags = {"anime"}, security = @SecurityRequirement(name = "Basic Authentication"))
+    public Flux<Anime> streamAll(){
+        return service.streamAll();
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Stream of all Anime as server-sent events", tags = {"anime"}, security = @SecurityRequirement(name = "Basic Authentication"))
+    public Flux<ServerSentEvent<Anime>> streamAllEvents(){
+        return service.streamAll()
+                .map(anime -> ServerSentEvent.builder(anime)
+                        .id(String.valueOf(anime.getId()))
+                        .build());
+    }
+
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Live feed of created, updated and deleted Anime; reconnecting with Last-Event-ID replays the missed ones",
+            tags = {"anime"}, security = @SecurityRequirement(name = "Basic Authentication"))
+    public Flux<ServerSentEvent<AnimeChange>> changes(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId){
+        ServerSentEvent<AnimeChange> end = ServerSentEvent.<AnimeChange>builder().build();
+        Flux<ServerSentEvent<AnimeChange>> events = service.changes(lastEventId)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(service.resumeToken(change))
+                        .event(change.type().name().toLowerCase(Locale.ROOT))
+                        .build())
+                .concatWith(Mono.just(end));
+        Flux<ServerSentEvent<AnimeChange>> heartbeats = Flux.interval(Duration.ZERO, properties.getChanges().getHeartbeat())
+                .map(tick -> ServerSentEvent.<AnimeChange>builder().comment("").build());
+        return Flux.merge(events, heartbeats)
+                .takeWhile(event -> event != end);
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(summary = "Anime for a list of ids, in request order, with the ids that do not exist", tags = {"anime"})
+    public Mono<AnimeLookup> findByIds(@RequestParam List<Long> ids){
+        return service.findByIds(ids);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "Same as GET /anime?ids=..., for id lists too long for a URL", tags = {"anime"})
+    public Mono<AnimeLookup> lookup(@RequestBody List<Long> ids){
+        return service.findByIds(ids);
+    }
+
+    @GetMapping(path = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE,
+            CodecConfiguration.APPLICATION_SMILE_VALUE})
+    @Operation(summary = "Anime whose name contains q, names starting with it first; at most search.max-limit, "
+            + "sent once the query completes so identical concurrent searches share it", tags = {"anime"})
+    public Flux<Anime> search(@RequestParam String q, @RequestParam(required = false) Integer limit){
+        return service.search(q, limit);
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Anime whose name starts with prefix, for type-ahead, served from memory", tags = {"anime"})
+    public Mono<List<AnimeSuggestion>> suggest(@RequestParam String prefix, @RequestParam(required = false) Integer limit){
+        return service.suggest(prefix, limit);
     }
 
     @GetMapping(path = "{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public Mono<Anime> getAnimeById(@PathVariable long id){
-        return service.findById(id);
+    @Operation(summary = "Anime by id, with its version as ETag; a matching If-None-Match gets 304", tags = {"anime"})
+    public Mono<ResponseEntity<DataBuffer>> getAnimeById(@PathVariable long id, ServerWebExchange exchange){
+        return Mono.fromSupplier(() -> cachedBodyMediaType(exchange))
+                .flatMap(mediaType -> service.findEncodedById(id, mediaType)
+                        .map(encoded -> ResponseEntity.ok()
+                                .contentType(mediaType)
+                                .eTag(String.valueOf(encoded.value().getVersion()))
+                                .varyBy(HttpHeaders.ACCEPT)
+                                .body(encoded.wrap(exchange.getResponse().bufferFactory()))));
     }
 
     @PostMapping
@@ -55,10 +166,38 @@ public class AnimeController {
         return service.saveAllAnime(animes);
     }
 
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Save a stream of Anime, committing one transaction per chunk", tags = {"anime"})
+    public Flux<IngestProgress> streamingBatchSave(@RequestBody Flux<Anime> animes){
+        return service.ingest(animes);
+    }
+
     @PutMapping
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public Mono<Void> updateAnime(@Valid @RequestBody Anime anime){
-        return service.update(anime);
+    @Operation(summary = "Rename an Anime; with If-Match only while its ETag still matches, answering 412 otherwise", tags = {"anime"})
+    public Mono<ResponseEntity<Void>> updateAnime(@Valid @RequestBody Anime anime,
+                                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        if (ifMatch == null || ifMatch.strip().equals("*")) {
+            return service.update(anime).thenReturn(ResponseEntity.noContent().build());
+        }
+        Long expectedVersion = versionOf(ifMatch);
+        if (expectedVersion == null) {
+            return Mono.error(new StacklessResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Anime was changed or deleted"));
+        }
+        return service.update(anime, expectedVersion)
+                .map(version -> ResponseEntity.noContent().eTag(String.valueOf(version)).<Void>build());
+    }
+
+    @PutMapping("/batch")
+    @Operation(summary = "Rename many Anime in one transaction, reporting the ids that do not exist", tags = {"anime"})
+    public Mono<BatchResult> batchUpdate(@RequestBody List<Anime> animes){
+        return service.updateAll(animes);
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete many Anime in one transaction, reporting the ids that do not exist", tags = {"anime"})
+    public Mono<BatchResult> batchDelete(@RequestParam List<Long> ids){
+        return service.deleteAll(ids);
     }
 
     @DeleteMapping(path = "{id}")
@@ -67,4 +206,31 @@ public class AnimeController {
         return service.delete(id);
     }
 
+    /** The version in a single strong ETag such as {@code "3"}, or null for anything else. */
+    private static Long versionOf(String eTag) {
+        String tag = eTag.strip();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The media type of a body served from the response cache: the first of JSON and Smile
+     * the request accepts, in the order WebFlux itself negotiates in.
+     */
+    private MediaType cachedBodyMediaType(ServerWebExchange exchange){
+        for (MediaType accepted : contentTypeResolver.resolveMediaTypes(exchange)) {
+            for (MediaType candidate : AnimeResponseCache.MEDIA_TYPES) {
+                if (accepted.isCompatibleWith(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        throw new NotAcceptableStatusException(AnimeResponseCache.MEDIA_TYPES);
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.controller;
+
+import com.example.domain.AccessToken;
+import com.example.service.TokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final TokenService tokenService;
+
+    @PostMapping("/token")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Exchange Basic credentials for a short-lived bearer token", tags = {"auth"}, security = @SecurityRequirement(name = "Basic Authentication"))
+    public Mono<AccessToken> issueToken(Authentication authentication){
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "A token can only be issued for a password login"));
+        }
+        return Mono.just(tokenService.issue(authentication));
+    }
+}
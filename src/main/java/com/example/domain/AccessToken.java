@@ -0,0 +1,7 @@
+package com.example.domain;
+
+/**
+ * Signed bearer token returned by {@code POST /auth/token}; {@code expiresIn} is in seconds.
+ */
+public record AccessToken(String accessToken, String tokenType, long expiresIn) {
+}
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 @Data
@@ -21,4 +22,12 @@ public class Anime {
     @NotNull
     @NotEmpty(message = "Name can not be empty")
     private String name;
+
+    /** Bumped by every update and served as the anime's ETag; 0 until the anime is saved. */
+    @Version
+    private long version;
+
+    public Anime(long id, String name) {
+        this(id, name, 0);
+    }
 }
@@ -0,0 +1,14 @@
+package com.example.domain;
+
+/**
+ * One committed write to the anime table, numbered in the order it was published.
+ * {@code name} is null for a deletion.
+ */
+public record AnimeChange(long sequence, Type type, long id, String name) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.domain;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a multi-get: the anime found, in request order, and the requested ids that
+ * did not match any anime.
+ */
+public record AnimeLookup(List<Anime> content, List<Long> missingIds) {
+
+    public static AnimeLookup of(List<Long> requested, Map<Long, Anime> found) {
+        return new AnimeLookup(
+                requested.stream().filter(found::containsKey).map(found::get).toList(),
+                requested.stream().filter(id -> !found.containsKey(id)).toList());
+    }
+}
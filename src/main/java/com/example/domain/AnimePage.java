@@ -0,0 +1,10 @@
+package com.example.domain;
+
+import java.util.List;
+
+/**
+ * One keyset page of anime ordered by id. {@code nextCursor} is the id to pass as
+ * {@code after} for the next page, or {@code null} when this is the last page.
+ */
+public record AnimePage(List<Anime> content, Long nextCursor) {
+}
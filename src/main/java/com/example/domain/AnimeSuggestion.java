@@ -0,0 +1,8 @@
+package com.example.domain;
+
+/**
+ * One type-ahead match from the in-memory name index. It carries no version, since the
+ * index does not track one.
+ */
+public record AnimeSuggestion(long id, String name) {
+}
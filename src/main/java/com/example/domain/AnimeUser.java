@@ -2,6 +2,8 @@ package com.example.domain;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Table;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -9,10 +11,10 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @Table("anime_user")
 public class AnimeUser implements UserDetails {
@@ -24,11 +26,41 @@ public class AnimeUser implements UserDetails {
     private String password;
     private String authorities;
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<GrantedAuthority> grantedAuthorities = Set.of();
+
+    @PersistenceCreator
+    public AnimeUser(long id, String name, String username, String password, String authorities) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.password = password;
+        setAuthorities(authorities);
+    }
+
+    public void setAuthorities(String authorities) {
+        this.authorities = authorities;
+        this.grantedAuthorities = parseAuthorities(authorities);
+    }
+
+    private static Set<GrantedAuthority> parseAuthorities(String authorities) {
+        if (authorities == null || authorities.isBlank()) {
+            return Set.of();
+        }
         return Arrays.stream(authorities.split(","))
+                .map(String::trim)
+                .filter(authority -> !authority.isEmpty())
                 .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return grantedAuthorities;
     }
 
     @Override
@@ -0,0 +1,18 @@
+package com.example.domain;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of a bulk update or delete: the requested ids that were changed and the ones
+ * that did not match any row, both in request order.
+ */
+public record BatchResult(List<Long> ids, List<Long> missingIds) {
+
+    public static BatchResult of(Collection<Long> requested, Set<Long> affected) {
+        return new BatchResult(
+                requested.stream().filter(affected::contains).toList(),
+                requested.stream().filter(id -> !affected.contains(id)).toList());
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.domain;
+
+/**
+ * Reported once per committed chunk of a streaming ingest: the 1-based chunk number,
+ * the rows written by that chunk and the rows written so far by the whole upload.
+ */
+public record IngestProgress(long chunk, long rows, long totalRows) {
+}
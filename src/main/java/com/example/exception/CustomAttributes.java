@@ -11,13 +11,15 @@ import java.util.Map;
 @Component
 public class CustomAttributes extends DefaultErrorAttributes {
 
+    public static final String DEVELOPER_MESSAGE = "A ResponseStatusErrorException Happened";
+
     @Override
     public Map<String, Object> getErrorAttributes(ServerRequest request, ErrorAttributeOptions options) {
         Map<String, Object> errorAttributesMap = super.getErrorAttributes(request, options);
         Throwable throwable = getError(request);
         if (throwable instanceof ResponseStatusException ex){
             errorAttributesMap.put("message", ex.getMessage());
-            errorAttributesMap.put("developerMessage", "A ResponseStatusErrorException Happened");
+            errorAttributesMap.put("developerMessage", DEVELOPER_MESSAGE);
             return errorAttributesMap;
         }
         return errorAttributesMap;
@@ -1,5 +1,9 @@
 package com.example.exception;
 
+import com.example.configuration.CodecConfiguration;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
@@ -7,6 +11,7 @@ import org.springframework.boot.web.error.ErrorAttributeOptions.Include;
 import org.springframework.boot.web.reactive.error.ErrorAttributes;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
@@ -17,9 +22,17 @@ import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
 
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -28,6 +41,17 @@ import static org.springframework.boot.web.error.ErrorAttributeOptions.*;
 @Component
 @Order(-2)
 public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
+    private static final List<MediaType> ERROR_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+            CodecConfiguration.APPLICATION_SMILE);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxxx")
+            .withZone(ZoneOffset.UTC);
+
+    /** JSON tail of a response status error body, keyed by status and message. */
+    private final Cache<String, byte[]> encodedTails = Caffeine.newBuilder()
+            .maximumSize(256)
+            .build();
+
     public GlobalExceptionHandler(ErrorAttributes errorAttributes,
                                   WebProperties.Resources resources,
                                   ApplicationContext applicationContext,
@@ -42,19 +66,76 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
     }
 
     private Mono<ServerResponse> formatErrorResponse(ServerRequest request){
-        String query = request.uri().getQuery();
-        ErrorAttributeOptions attributeOptions = isTraceEnabled(query) ? of(Include.STACK_TRACE) : defaults();
+        boolean traceEnabled = isTraceEnabled(request.uri().getRawQuery());
+        MediaType mediaType = errorMediaType(request);
+        if (!traceEnabled && mediaType == MediaType.APPLICATION_JSON && getError(request) instanceof ResponseStatusException ex) {
+            HttpStatus httpStatus = HttpStatus.resolve(ex.getStatusCode().value());
+            if (httpStatus != null) {
+                return encodedErrorResponse(request, ex, httpStatus);
+            }
+        }
+        ErrorAttributeOptions attributeOptions = traceEnabled ? of(Include.STACK_TRACE) : defaults();
 
         Map<String, Object> errorAttributesMap = getErrorAttributes(request, attributeOptions);
-//                .of(Include.STACK_TRACE));
         int status = (int) Optional.ofNullable(errorAttributesMap.get("status")).orElse(500);
 
         return ServerResponse
                 .status(status)
-                .contentType(MediaType.APPLICATION_JSON)
+                .contentType(mediaType)
                 .body(BodyInserters.fromValue(errorAttributesMap));
     }
 
+    /**
+     * The first of JSON and Smile the client accepts, by quality; JSON when it accepts
+     * neither, as for a successful response.
+     */
+    private static MediaType errorMediaType(ServerRequest request) {
+        List<MediaType> accepted = new ArrayList<>(request.headers().accept());
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            for (MediaType candidate : ERROR_MEDIA_TYPES) {
+                if (type.isCompatibleWith(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Writes the same body {@link CustomAttributes} produces for a {@link ResponseStatusException},
+     * without building the attributes map or going through the JSON encoder. Only the timestamp,
+     * path and request id change per request; the rest is encoded once per status and message.
+     */
+    private Mono<ServerResponse> encodedErrorResponse(ServerRequest request, ResponseStatusException ex,
+                                                      HttpStatus status) {
+        byte[] tail = encodedTails.get(status.value() + " " + ex.getMessage(), key -> encodeTail(status, ex));
+        byte[] head = ("{\"timestamp\":\"" + TIMESTAMP.format(Instant.now())
+                + "\",\"path\":\"" + quote(request.requestPath().value())
+                + "\",\"requestId\":\"" + quote(request.exchange().getRequest().getId())
+                + "\"").getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[head.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(tail, 0, body, head.length, tail.length);
+
+        return ServerResponse
+                .status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body);
+    }
+
+    private static byte[] encodeTail(HttpStatus status, ResponseStatusException ex) {
+        return (",\"status\":" + status.value()
+                + ",\"error\":\"" + quote(status.getReasonPhrase())
+                + "\",\"message\":\"" + quote(ex.getMessage())
+                + "\",\"developerMessage\":\"" + quote(CustomAttributes.DEVELOPER_MESSAGE)
+                + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return new String(JsonStringEncoder.getInstance().quoteAsString(value));
+    }
+
     private boolean isTraceEnabled(String query){
         return !StringUtils.isEmpty(query) && query.contains("trace=true");
     }
@@ -0,0 +1,21 @@
+package com.example.exception;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * {@link ResponseStatusException} that skips filling in its stack trace, which is most of
+ * the cost of creating an exception. Meant for expected client errors such as an unknown
+ * id, where the trace says nothing the status and reason do not.
+ */
+public class StacklessResponseStatusException extends ResponseStatusException {
+
+    public StacklessResponseStatusException(HttpStatusCode status, String reason) {
+        super(status, reason);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
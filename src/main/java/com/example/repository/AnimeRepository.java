@@ -1,12 +1,33 @@
 package com.example.repository;
 
 import com.example.domain.Anime;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
-public interface AnimeRepository extends ReactiveCrudRepository<Anime, Long> {
+public interface AnimeRepository extends ReactiveCrudRepository<Anime, Long>, AnimeRepositoryCustom {
 
     Mono<Anime> findById(long id);
+
+    @Query("SELECT * FROM anime WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Anime> findPage(long after, int limit);
+
+    @Modifying
+    @Query("UPDATE anime SET name = :name, version = version + 1 WHERE id = :id")
+    Mono<Integer> updateName(long id, String name);
+
+    /**
+     * Renames the row only while it is still at {@code version}, in one statement, and emits
+     * its new version; emits nothing when it was changed or deleted in the meantime.
+     */
+    @Query("UPDATE anime SET name = :name, version = version + 1 WHERE id = :id AND version = :version RETURNING version")
+    Mono<Long> updateName(long id, String name, long version);
+
+    @Modifying
+    @Query("DELETE FROM anime WHERE id = :id")
+    Mono<Integer> deleteAnimeById(long id);
 }
@@ -0,0 +1,46 @@
+package com.example.repository;
+
+import com.example.domain.Anime;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+public interface AnimeRepositoryCustom {
+
+    /**
+     * Streams the whole table ordered by id, asking the driver for {@code fetchSize}
+     * rows at a time so rows are only pulled from Postgres as fast as they are consumed.
+     */
+    Flux<Anime> streamAll(int fetchSize);
+
+    /**
+     * Inserts all rows with one multi-row {@code INSERT ... VALUES (...),(...) RETURNING *}
+     * statement and emits them with their generated ids.
+     */
+    Flux<Anime> insertAll(List<Anime> animes);
+
+    /**
+     * Loads all rows whose id is in {@code ids} with one {@code WHERE id = ANY(...)} query,
+     * in no particular order.
+     */
+    Flux<Anime> findByIds(List<Long> ids);
+
+    /**
+     * Streams up to {@code limit} rows whose name contains {@code query}, ignoring case,
+     * names starting with it first. {@code LIKE} wildcards in the query match literally.
+     * Served by the {@code pg_trgm} index on {@code anime.name}.
+     */
+    Flux<Anime> search(String query, int limit);
+
+    /**
+     * Renames all rows with one {@code UPDATE ... FROM (VALUES ...)} statement, bumping their
+     * versions, and emits the ids that matched an existing row.
+     */
+    Flux<Long> updateNames(List<Anime> animes);
+
+    /**
+     * Deletes all rows with one {@code DELETE ... WHERE id = ANY(...)} statement and emits
+     * the ids that matched an existing row.
+     */
+    Flux<Long> deleteByIds(List<Long> ids);
+}
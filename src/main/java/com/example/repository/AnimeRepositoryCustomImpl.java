@@ -0,0 +1,97 @@
+package com.example.repository;
+
+import com.example.domain.Anime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+@RequiredArgsConstructor
+public class AnimeRepositoryCustomImpl implements AnimeRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    @Override
+    public Flux<Anime> streamAll(int fetchSize) {
+        return template.getDatabaseClient()
+                .sql("SELECT * FROM anime ORDER BY id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map((row, metadata) -> template.getConverter().read(Anime.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Anime> insertAll(List<Anime> animes) {
+        if (animes.isEmpty()) {
+            return Flux.empty();
+        }
+        StringJoiner values = new StringJoiner(",", "INSERT INTO anime (name) VALUES ", " RETURNING *");
+        for (int i = 1; i <= animes.size(); i++) {
+            values.add("($" + i + ")");
+        }
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(values.toString());
+        for (int i = 0; i < animes.size(); i++) {
+            spec = spec.bind(i, animes.get(i).getName());
+        }
+        return spec.map((row, metadata) -> template.getConverter().read(Anime.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Anime> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return template.getDatabaseClient()
+                .sql("SELECT * FROM anime WHERE id = ANY($1)")
+                .bind(0, ids.toArray(Long[]::new))
+                .map((row, metadata) -> template.getConverter().read(Anime.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Anime> search(String query, int limit) {
+        String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return template.getDatabaseClient()
+                .sql("SELECT * FROM anime WHERE name ILIKE $1 ORDER BY name ILIKE $2 DESC, name, id LIMIT $3")
+                .bind(0, "%" + escaped + "%")
+                .bind(1, escaped + "%")
+                .bind(2, limit)
+                .map((row, metadata) -> template.getConverter().read(Anime.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Long> updateNames(List<Anime> animes) {
+        if (animes.isEmpty()) {
+            return Flux.empty();
+        }
+        StringJoiner values = new StringJoiner(",", "UPDATE anime AS a SET name = v.name, version = a.version + 1 FROM (VALUES ",
+                ") AS v (id, name) WHERE a.id = v.id RETURNING a.id");
+        for (int i = 1; i <= animes.size(); i++) {
+            values.add("($" + (2 * i - 1) + "::bigint, $" + (2 * i) + ")");
+        }
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(values.toString());
+        for (int i = 0; i < animes.size(); i++) {
+            spec = spec.bind(2 * i, animes.get(i).getId())
+                    .bind(2 * i + 1, animes.get(i).getName());
+        }
+        return spec.map(row -> row.get(0, Long.class))
+                .all();
+    }
+
+    @Override
+    public Flux<Long> deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return template.getDatabaseClient()
+                .sql("DELETE FROM anime WHERE id = ANY($1) RETURNING id")
+                .bind(0, ids.toArray(Long[]::new))
+                .map(row -> row.get(0, Long.class))
+                .all();
+    }
+}
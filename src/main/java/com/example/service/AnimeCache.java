@@ -0,0 +1,96 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.Anime;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Read-through cache of anime by id. Misses are cached as well, for the shorter
+ * {@code anime.cache.negative-ttl}, so repeated lookups of unknown ids stay off the
+ * database. Concurrent loads of the same id share one query.
+ */
+@Component
+public class AnimeCache implements MeterBinder {
+
+    private final AsyncCache<Long, Optional<Anime>> cache;
+
+    public AnimeCache(AnimeProperties properties) {
+        AnimeProperties.Cache config = properties.getCache();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfter(new PresenceExpiry(config.getTtl(), config.getNegativeTtl()))
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Mono<Anime> get(long id, LongFunction<Mono<Anime>> loader) {
+        return Mono.fromFuture(() -> cache.get(id, (key, executor) -> loader.apply(key)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .toFuture()), true)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * Looks up many ids at once. Ids that are not cached are loaded together with one call
+     * to {@code loader}; the result only holds the ids that exist.
+     */
+    public Mono<Map<Long, Anime>> getAll(List<Long> ids, Function<List<Long>, Flux<Anime>> loader) {
+        return Mono.fromFuture(() -> cache.getAll(ids, (missing, executor) -> loader.apply(List.copyOf(missing))
+                        .collectMap(Anime::getId)
+                        .map(found -> {
+                            Map<Long, Optional<Anime>> loaded = new HashMap<>();
+                            missing.forEach(id -> loaded.put(id, Optional.ofNullable(found.get(id))));
+                            return loaded;
+                        })
+                        .toFuture()), true)
+                .map(cached -> {
+                    Map<Long, Anime> found = new HashMap<>();
+                    cached.forEach((id, anime) -> anime.ifPresent(value -> found.put(id, value)));
+                    return found;
+                });
+    }
+
+    public void invalidate(long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "anime");
+    }
+
+    private record PresenceExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Long, Optional<Anime>> {
+
+        @Override
+        public long expireAfterCreate(Long key, Optional<Anime> value, long currentTime) {
+            return (value.isPresent() ? ttl : negativeTtl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Long key, Optional<Anime> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long key, Optional<Anime> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.Anime;
+import com.example.domain.AnimeChange;
+import com.example.exception.StacklessResponseStatusException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans committed anime writes out to every live subscriber. The last
+ * {@code anime.changes.history-size} changes are kept so a client that reconnects with
+ * the resume token of the last change it saw gets the ones it missed first.
+ * <p>
+ * Each subscriber has its own buffer of {@code anime.changes.buffer-size} changes; when a
+ * slow one fills it, its oldest changes are dropped or its stream is ended, depending on
+ * {@code anime.changes.slow-consumer}. An ended client can resume without losing anything
+ * as long as it reconnects within the history.
+ */
+@Component
+public class AnimeChangeFeed implements MeterBinder {
+
+    private final AnimeProperties.Changes config;
+    private final Sinks.Many<AnimeChange> sink;
+    /** Tells resume tokens of this process apart from those of an earlier one. */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    /** Only written under the lock in publish; read without it. */
+    private volatile long sequence;
+
+    public AnimeChangeFeed(AnimeProperties properties) {
+        this.config = properties.getChanges();
+        this.sink = Sinks.many().replay().limit(config.getHistorySize());
+    }
+
+    public void created(Collection<Anime> animes) {
+        animes.forEach(anime -> publish(AnimeChange.Type.CREATED, anime.getId(), anime.getName()));
+    }
+
+    public void updated(Collection<Anime> animes) {
+        animes.forEach(anime -> publish(AnimeChange.Type.UPDATED, anime.getId(), anime.getName()));
+    }
+
+    public void deleted(Collection<Long> ids) {
+        ids.forEach(id -> publish(AnimeChange.Type.DELETED, id, null));
+    }
+
+    /**
+     * Changes published from now on, or, given the resume token of a change, every change
+     * after it. Fails with 410 Gone when some of those are no longer in the history.
+     */
+    public Flux<AnimeChange> subscribe(String resumeToken) {
+        return Flux.defer(() -> {
+            long after = resumeToken == null ? sequence : parse(resumeToken);
+            Flux<AnimeChange> changes = sink.asFlux()
+                    .skipWhile(change -> change.sequence() <= after);
+            if (resumeToken != null) {
+                changes = changes.switchOnFirst((first, rest) -> first.hasValue() && first.get().sequence() > after + 1
+                        ? Flux.error(expired()) : rest);
+            }
+            return changes
+                    .onBackpressureBuffer(config.getBufferSize(), change -> dropped.incrementAndGet(),
+                            config.getSlowConsumer() == AnimeProperties.Changes.SlowConsumer.DROP_OLDEST
+                                    ? BufferOverflowStrategy.DROP_OLDEST : BufferOverflowStrategy.ERROR)
+                    .onErrorResume(Exceptions::isOverflow, error -> Flux.empty())
+                    .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                    .doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    public String resumeToken(AnimeChange change) {
+        return epoch + "-" + change.sequence();
+    }
+
+    /** Resume token of the latest change; moves on whenever a write commits. */
+    public String currentResumeToken() {
+        return epoch + "-" + sequence;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("anime.changes.subscribers", subscribers, AtomicInteger::get)
+                .description("Clients following the change feed")
+                .register(registry);
+        FunctionCounter.builder("anime.changes.dropped", dropped, AtomicLong::get)
+                .description("Changes a slow subscriber missed because its buffer was full")
+                .register(registry);
+    }
+
+    /** Numbers and emits under one lock, so subscribers see changes in sequence order. */
+    private synchronized void publish(AnimeChange.Type type, long id, String name) {
+        sink.emitNext(new AnimeChange(++sequence, type, id, name), Sinks.EmitFailureHandler.FAIL_FAST);
+    }
+
+    private long parse(String resumeToken) {
+        int separator = resumeToken.lastIndexOf('-');
+        if (separator < 0 || !resumeToken.substring(0, separator).equals(epoch)) {
+            throw expired();
+        }
+        try {
+            return Long.parseLong(resumeToken.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid resume token");
+        }
+    }
+
+    private static StacklessResponseStatusException expired() {
+        return new StacklessResponseStatusException(HttpStatus.GONE, "Resume token expired, reload the anime list");
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.service;
+
+import com.example.domain.Anime;
+import com.example.domain.AnimeSuggestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prefix index over anime names for type-ahead. Names are normalized (trimmed, lower case)
+ * and kept in sorted arrays next to the display names and primitive ids, so a lookup is a
+ * binary search plus a scan that only allocates the result.
+ * <p>
+ * A snapshot is a large base array plus a small sorted delta holding the latest name of
+ * every id changed since the base was built; base entries of changed ids are skipped.
+ * Writes are queued and applied on a dedicated thread, never on the caller's event loop:
+ * a burst is folded into one new delta, and the delta is only merged into the base once
+ * it outgrows {@link #compactionThreshold(int)}.
+ */
+@Component
+public class AnimeNameIndex implements MeterBinder, DisposableBean {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::key).thenComparingLong(Entry::id);
+
+    private final Queue<Op> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Scheduler writer;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    /** Changes made since a rebuild started, replayed on the rebuilt snapshot; only touched while draining. */
+    private List<Change> sinceLoad;
+
+    public AnimeNameIndex() {
+        this(Schedulers.newSingle("anime-name-index", true));
+    }
+
+    AnimeNameIndex(Scheduler writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Replaces the whole index with {@code animes} and completes once lookups see it.
+     * Writes made while they load are applied on top of the loaded snapshot as well.
+     */
+    public Mono<Void> rebuild(Flux<Anime> animes) {
+        return Mono.defer(() -> {
+            submit(new LoadStarted());
+            return animes
+                    .map(anime -> new Entry(normalize(anime.getName()), anime.getName(), anime.getId()))
+                    .collectList()
+                    .flatMap(entries -> {
+                        entries.sort(ORDER);
+                        return Mono.<Void>create(sink -> submit(new Loaded(Snapshot.of(entries), sink)));
+                    })
+                    .doOnError(error -> submit(new Loaded(null, null)));
+        });
+    }
+
+    public void put(Anime anime) {
+        putAll(List.of(anime));
+    }
+
+    public void putAll(Collection<Anime> animes) {
+        animes.forEach(anime -> pending.add(new Change(anime.getId(), anime.getName())));
+        drain();
+    }
+
+    public void remove(long id) {
+        removeAll(List.of(id));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        ids.forEach(id -> pending.add(new Change(id, null)));
+        drain();
+    }
+
+    /**
+     * Up to {@code limit} suggestions whose normalized name starts with the normalized
+     * {@code prefix}, in name order.
+     */
+    public List<AnimeSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<AnimeSuggestion> result = new ArrayList<>(Math.min(limit, 16));
+        if (key.isEmpty()) {
+            return result;
+        }
+        Snapshot current = snapshot;
+        Sorted base = current.base;
+        Sorted delta = current.delta;
+        int i = base.lowerBound(key);
+        int j = delta.lowerBound(key);
+        while (result.size() < limit) {
+            while (i < base.size() && base.keys[i].startsWith(key) && current.isChanged(base.ids[i])) {
+                i++;
+            }
+            boolean inBase = i < base.size() && base.keys[i].startsWith(key);
+            boolean inDelta = j < delta.size() && delta.keys[j].startsWith(key);
+            if (inBase && (!inDelta || base.compare(i, delta.keys[j], delta.ids[j]) < 0)) {
+                result.add(new AnimeSuggestion(base.ids[i], base.names[i]));
+                i++;
+            } else if (inDelta) {
+                result.add(new AnimeSuggestion(delta.ids[j], delta.names[j]));
+                j++;
+            } else {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("anime.suggest.index.size", this, AnimeNameIndex::size)
+                .description("Names held by the autocomplete index")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        writer.dispose();
+    }
+
+    /** Delta size past which it is merged into the base: rare enough to amortize the copy. */
+    static int compactionThreshold(int baseSize) {
+        return Math.max(1024, baseSize / 32);
+    }
+
+    static String normalize(String name) {
+        return name == null ? "" : name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private void submit(Op op) {
+        pending.add(op);
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            writer.schedule(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            List<Change> batch = new ArrayList<>();
+            for (Op op; (op = pending.poll()) != null; ) {
+                if (op instanceof Change change) {
+                    batch.add(change);
+                    if (sinceLoad != null) {
+                        sinceLoad.add(change);
+                    }
+                    continue;
+                }
+                snapshot = snapshot.apply(batch);
+                batch.clear();
+                if (op instanceof LoadStarted) {
+                    sinceLoad = new ArrayList<>();
+                } else if (op instanceof Loaded loaded) {
+                    if (loaded.snapshot() != null) {
+                        snapshot = loaded.snapshot().apply(sinceLoad == null ? List.of() : sinceLoad);
+                        loaded.done().success();
+                    }
+                    sinceLoad = null;
+                }
+            }
+            snapshot = snapshot.apply(batch);
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private record Entry(String key, String name, long id) {
+    }
+
+    private sealed interface Op permits Change, LoadStarted, Loaded {
+    }
+
+    /** A new name for an id, or its removal when {@code name} is null. */
+    private record Change(long id, String name) implements Op {
+    }
+
+    private record LoadStarted() implements Op {
+    }
+
+    /** The result of a rebuild, or null when it failed. */
+    private record Loaded(Snapshot snapshot, MonoSink<Void> done) implements Op {
+    }
+
+    /** Parallel arrays sorted by normalized name, then id. */
+    private static final class Sorted {
+
+        static final Sorted EMPTY = new Sorted(new String[0], new String[0], new long[0]);
+
+        final String[] keys;
+        final String[] names;
+        final long[] ids;
+
+        Sorted(String[] keys, String[] names, long[] ids) {
+            this.keys = keys;
+            this.names = names;
+            this.ids = ids;
+        }
+
+        static Sorted of(List<Entry> sorted) {
+            String[] keys = new String[sorted.size()];
+            String[] names = new String[sorted.size()];
+            long[] ids = new long[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                Entry entry = sorted.get(i);
+                keys[i] = entry.key();
+                names[i] = entry.name();
+                ids[i] = entry.id();
+            }
+            return new Sorted(keys, names, ids);
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        int compare(int index, String key, long id) {
+            int byKey = keys[index].compareTo(key);
+            return byKey != 0 ? byKey : Long.compare(ids[index], id);
+        }
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(Sorted.EMPTY, new long[0], Sorted.EMPTY, new long[0]);
+
+        final Sorted base;
+        /** Base ids in id order, to tell which changed ids replace a base entry. */
+        final long[] baseIds;
+        final Sorted delta;
+        /** Sorted ids changed since the base was built; their base entries are stale. */
+        final long[] changed;
+        final int size;
+
+        private Snapshot(Sorted base, long[] baseIds, Sorted delta, long[] changed) {
+            this.base = base;
+            this.baseIds = baseIds;
+            this.delta = delta;
+            this.changed = changed;
+            int stale = 0;
+            for (long id : changed) {
+                if (Arrays.binarySearch(baseIds, id) >= 0) {
+                    stale++;
+                }
+            }
+            this.size = base.size() - stale + delta.size();
+        }
+
+        static Snapshot of(List<Entry> sorted) {
+            return of(Sorted.of(sorted));
+        }
+
+        static Snapshot of(Sorted base) {
+            long[] baseIds = base.ids.clone();
+            Arrays.sort(baseIds);
+            return new Snapshot(base, baseIds, Sorted.EMPTY, new long[0]);
+        }
+
+        boolean isChanged(long id) {
+            return changed.length > 0 && Arrays.binarySearch(changed, id) >= 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Folds the changes into a new delta holding the latest name of every changed id,
+         * then merges it into the base if it has grown past the compaction threshold.
+         */
+        Snapshot apply(List<Change> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            Map<Long, String> latest = new LinkedHashMap<>();
+            for (int i = 0; i < delta.size(); i++) {
+                latest.put(delta.ids[i], delta.names[i]);
+            }
+            for (long id : changed) {
+                latest.putIfAbsent(id, null);
+            }
+            changes.forEach(change -> latest.put(change.id(), change.name()));
+
+            List<Entry> entries = new ArrayList<>(latest.size());
+            latest.forEach((id, name) -> {
+                if (name != null) {
+                    entries.add(new Entry(normalize(name), name, id));
+                }
+            });
+            entries.sort(ORDER);
+            long[] changedIds = latest.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            Snapshot next = new Snapshot(base, baseIds, Sorted.of(entries), changedIds);
+            return changedIds.length > compactionThreshold(base.size()) ? next.compact() : next;
+        }
+
+        /** Merges the delta into the base in one pass. */
+        Snapshot compact() {
+            int capacity = base.size() + delta.size();
+            String[] keys = new String[capacity];
+            String[] names = new String[capacity];
+            long[] ids = new long[capacity];
+            int size = 0;
+            int j = 0;
+            for (int i = 0; i <= base.size(); i++) {
+                boolean last = i == base.size();
+                if (!last && isChanged(base.ids[i])) {
+                    continue;
+                }
+                while (j < delta.size() && (last || base.compare(i, delta.keys[j], delta.ids[j]) > 0)) {
+                    keys[size] = delta.keys[j];
+                    names[size] = delta.names[j];
+                    ids[size++] = delta.ids[j++];
+                }
+                if (!last) {
+                    keys[size] = base.keys[i];
+                    names[size] = base.names[i];
+                    ids[size++] = base.ids[i];
+                }
+            }
+            return of(size == capacity ? new Sorted(keys, names, ids)
+                    : new Sorted(Arrays.copyOf(keys, size), Arrays.copyOf(names, size), Arrays.copyOf(ids, size)));
+        }
+    }
+}
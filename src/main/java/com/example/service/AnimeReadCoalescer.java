@@ -0,0 +1,76 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for reads: callers asking for the same key while a query for it is running
+ * get that query's result instead of starting their own, so a burst of identical requests
+ * costs one query and one connection. The query is forgotten as soon as it completes, fails
+ * or is cancelled by every caller, so results are never served from here afterwards.
+ */
+@Component
+public class AnimeReadCoalescer {
+
+    public static final String COALESCED_METRIC = "anime.service.coalesced";
+    public static final String IN_FLIGHT_METRIC = "anime.service.inflight";
+
+    private final ConcurrentMap<Key, Mono<?>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public AnimeReadCoalescer(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight, Map::size)
+                .description("Distinct reads currently running on behalf of one or more callers")
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code query} for {@code key} of {@code method}, unless one is already running,
+     * in which case its result is shared. {@code query} is only called when a new read starts.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> coalesce(String method, Object key, Supplier<Mono<T>> query) {
+        return Mono.defer(() -> {
+            Key flightKey = new Key(method, key);
+            Mono<T> running = (Mono<T>) inFlight.get(flightKey);
+            if (running != null) {
+                return joined(method, running);
+            }
+            AtomicReference<Mono<T>> self = new AtomicReference<>();
+            Mono<T> flight = query.get()
+                    .doFinally(signal -> inFlight.remove(flightKey, self.get()))
+                    .share();
+            self.set(flight);
+            running = (Mono<T>) inFlight.putIfAbsent(flightKey, flight);
+            return running == null ? flight : joined(method, running);
+        });
+    }
+
+    /** Makes the next caller of every key start a new read, e.g. once a write has committed. */
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    private <T> Mono<T> joined(String method, Mono<T> running) {
+        coalesced.computeIfAbsent(method, name -> Counter.builder(COALESCED_METRIC)
+                        .description("Reads answered by a query already running for another caller")
+                        .tag("method", name)
+                        .register(registry))
+                .increment();
+        return running;
+    }
+
+    private record Key(String method, Object key) {
+    }
+}
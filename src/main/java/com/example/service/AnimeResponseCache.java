@@ -0,0 +1,127 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.configuration.CodecConfiguration;
+import com.example.domain.Anime;
+import com.example.domain.AnimePage;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Response bodies of {@code GET /anime/{id}} and of the {@code GET /anime} listing pages,
+ * encoded once per media type with the application's codecs and kept as read-only bytes,
+ * so a hit is written out without going through Jackson again.
+ * <p>
+ * Anime entries are dropped by {@link #invalidate(Collection)} once a write commits; an
+ * encoding still in flight for a dropped id is discarded rather than cached. Pages are
+ * keyed by the catalog version they were read at, so a write makes them unreachable even
+ * before {@link #invalidate(Collection)} clears them.
+ */
+@Component
+public class AnimeResponseCache implements MeterBinder {
+
+    /** Media types bodies are cached as, in the order they are offered when the client accepts any. */
+    public static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON, CodecConfiguration.APPLICATION_SMILE);
+
+    private static final ResolvableType ANIME = ResolvableType.forClass(Anime.class);
+    private static final ResolvableType ANIME_LIST = ResolvableType.forClassWithGenerics(List.class, Anime.class);
+
+    private final ServerCodecConfigurer codecs;
+    private final AsyncCache<AnimeKey, Encoded<Anime>> animes;
+    private final AsyncCache<PageKey, Encoded<AnimePage>> pages;
+
+    public AnimeResponseCache(AnimeProperties properties, ServerCodecConfigurer codecs) {
+        AnimeProperties.ResponseCache config = properties.getResponseCache();
+        this.codecs = codecs;
+        this.animes = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumPages())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+    }
+
+    public Mono<Encoded<Anime>> anime(long id, MediaType mediaType, LongFunction<Mono<Anime>> loader) {
+        return Mono.fromFuture(() -> animes.get(new AnimeKey(id, mediaType), (key, executor) -> loader.apply(id)
+                .map(anime -> new Encoded<>(anime, encode(anime, ANIME, mediaType)))
+                .toFuture()), true);
+    }
+
+    public Mono<Encoded<AnimePage>> page(String catalogVersion, Long after, Integer limit, MediaType mediaType,
+                                         Supplier<Mono<AnimePage>> loader) {
+        PageKey pageKey = new PageKey(catalogVersion, after, limit, mediaType);
+        return Mono.fromFuture(() -> pages.get(pageKey, (key, executor) -> loader.get()
+                .map(page -> new Encoded<>(page, encode(page.content(), ANIME_LIST, mediaType)))
+                .toFuture()), true);
+    }
+
+    /** Drops the cached bodies of {@code ids} in every media type, and every cached page. */
+    public void invalidate(Collection<Long> ids) {
+        ids.forEach(id -> MEDIA_TYPES.forEach(mediaType -> animes.synchronous().invalidate(new AnimeKey(id, mediaType))));
+        pages.synchronous().invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, animes, "anime.response");
+        CaffeineCacheMetrics.monitor(registry, pages, "anime.response.page");
+    }
+
+    @SuppressWarnings("unchecked")
+    private ByteBuffer encode(Object value, ResolvableType type, MediaType mediaType) {
+        Encoder<Object> encoder = codecs.getWriters().stream()
+                .filter(EncoderHttpMessageWriter.class::isInstance)
+                .map(writer -> (Encoder<Object>) ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .filter(candidate -> candidate.canEncode(type, mediaType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No encoder for " + type + " as " + mediaType));
+        DataBuffer buffer = encoder.encodeValue(value, DefaultDataBufferFactory.sharedInstance, type, mediaType, Map.of());
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /** A value together with its encoded body. */
+    public record Encoded<T>(T value, ByteBuffer body) {
+
+        /** The body as a buffer of {@code bufferFactory}, sharing the cached bytes rather than copying them. */
+        public DataBuffer wrap(DataBufferFactory bufferFactory) {
+            return bufferFactory.wrap(body.duplicate());
+        }
+    }
+
+    private record AnimeKey(long id, MediaType mediaType) {
+    }
+
+    private record PageKey(String catalogVersion, Long after, Integer limit, MediaType mediaType) {
+    }
+}
@@ -1,62 +1,384 @@
 package com.example.service;
 
+import com.example.configuration.AnimeProperties;
 import com.example.domain.Anime;
+import com.example.domain.AnimeChange;
+import com.example.domain.AnimeLookup;
+import com.example.domain.AnimePage;
+import com.example.domain.AnimeSuggestion;
+import com.example.domain.BatchResult;
+import com.example.domain.IngestProgress;
+import com.example.exception.StacklessResponseStatusException;
 import com.example.repository.AnimeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.util.internal.StringUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.observability.micrometer.Micrometer;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class AnimeService {
     public final AnimeRepository repository;
+    private final AnimeProperties properties;
+    private final TransactionalOperator transactionalOperator;
+    private final AnimeCache cache;
+    private final AnimeNameIndex nameIndex;
+    private final AnimeChangeFeed changeFeed;
+    private final AnimeResponseCache responseCache;
+    private final AnimeReadCoalescer coalescer;
+    private final RepositoryConcurrencyLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private Disposable nameIndexBuild;
 
-    public Flux<Anime> getAllAnimes() {
-        return repository.findAll();
+    public static final String METRIC_NAME = "anime.service";
+
+    /**
+     * Loads the autocomplete index once the application is up, retrying with backoff while
+     * the database is unreachable. Suggestions are empty until it has loaded.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildNameIndex() {
+        int fetchSize = properties.getStream().getFetchSize();
+        nameIndexBuild = nameIndex.rebuild(repository.streamAll(fetchSize))
+                .doOnError(error -> log.warn("Could not load the autocomplete index: {}", error.toString()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofMinutes(1)))
+                .subscribe(null, null, () -> log.info("Autocomplete index loaded with {} names", nameIndex.size()));
+    }
+
+    @PreDestroy
+    public void stopNameIndexBuild() {
+        if (nameIndexBuild != null) {
+            nameIndexBuild.dispose();
+        }
+    }
+
+    public Flux<Anime> streamAll() {
+        int fetchSize = properties.getStream().getFetchSize();
+        return timed("streamAll", repository.streamAll(fetchSize)
+                .limitRate(fetchSize));
+    }
+
+    public Mono<AnimePage> getPage(Long after, Integer limit) {
+        if (limit != null && limit < 1) {
+            return Mono.error(new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit"));
+        }
+        AnimeProperties.Page page = properties.getPage();
+        int pageSize = limit == null ? page.getDefaultLimit() : Math.min(limit, page.getMaxLimit());
+        long from = after == null ? 0 : after;
+        return timed("getPage", coalescer.coalesce("getPage", List.of(from, pageSize),
+                        () -> limiter.limit(repository.findPage(from, pageSize).collectList()))
+                .map(content -> new AnimePage(content, content.size() < pageSize ? null
+                        : content.get(content.size() - 1).getId())));
+    }
+
+    /** {@link #getPage(Long, Integer)} as a response body already encoded as {@code mediaType}. */
+    public Mono<AnimeResponseCache.Encoded<AnimePage>> getEncodedPage(Long after, Integer limit, MediaType mediaType) {
+        return timed("getEncodedPage", responseCache.page(catalogVersion(), after, limit, mediaType,
+                () -> getPage(after, limit)));
     }
 
     public Mono<Anime> findById(long id){
-        return repository.findById(id)
-                .switchIfEmpty(monoResponseStatusNotFoundException());
+        return timed("findById", cache.get(id, key -> limiter.limit(repository.findById(key)))
+                .switchIfEmpty(monoResponseStatusNotFoundException()));
+    }
+
+    /**
+     * {@link #findById(long)} as a response body already encoded as {@code mediaType},
+     * shared by every request for the same anime until it is written.
+     */
+    public Mono<AnimeResponseCache.Encoded<Anime>> findEncodedById(long id, MediaType mediaType) {
+        return timed("findEncodedById", responseCache.anime(id, mediaType, this::findById));
+    }
+
+    public Mono<AnimeLookup> findByIds(List<Long> ids) {
+        StacklessResponseStatusException invalid = invalidIds(ids);
+        if (invalid != null) {
+            return Mono.error(invalid);
+        }
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        return timed("findByIds", cache.getAll(distinctIds, missing -> limiter.limit(repository.findByIds(missing)))
+                .map(found -> AnimeLookup.of(distinctIds, found)));
+    }
+
+    /**
+     * Up to {@code limit} anime whose name contains {@code query}. The rows are collected
+     * before they are emitted, so callers asking the same while the query runs can share
+     * it; results are bounded by {@code search.max-limit}, so nothing is gained by streaming.
+     */
+    public Flux<Anime> search(String query, Integer limit) {
+        AnimeProperties.Search search = properties.getSearch();
+        String trimmed = query.strip();
+        if (trimmed.length() < search.getMinLength()) {
+            return Flux.error(new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Query too short"));
+        }
+        if (limit != null && limit < 1) {
+            return Flux.error(new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit"));
+        }
+        int resultSize = limit == null ? search.getDefaultLimit() : Math.min(limit, search.getMaxLimit());
+        return timed("search", coalescer.coalesce("search", List.of(trimmed, resultSize),
+                        () -> limiter.limit(repository.search(trimmed, resultSize).collectList()))
+                .flatMapIterable(Function.identity()));
+    }
+
+    public Mono<List<AnimeSuggestion>> suggest(String prefix, Integer limit) {
+        if (limit != null && limit < 1) {
+            return Mono.error(new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit"));
+        }
+        AnimeProperties.Suggest suggest = properties.getSuggest();
+        int resultSize = limit == null ? suggest.getDefaultLimit() : Math.min(limit, suggest.getMaxLimit());
+        return timed("suggest", Mono.fromSupplier(() -> nameIndex.suggest(prefix, resultSize)));
+    }
+
+    /**
+     * Committed writes as they happen, or, given the resume token of a change, the ones
+     * made after it first.
+     */
+    public Flux<AnimeChange> changes(String resumeToken) {
+        return timed("changes", changeFeed.subscribe(resumeToken));
+    }
+
+    public String resumeToken(AnimeChange change) {
+        return changeFeed.resumeToken(change);
+    }
+
+    /**
+     * Changes whenever a write made through this service commits, and at least once every
+     * {@code page.version-ttl} for writes it cannot see (other instances, direct SQL, data
+     * loads), so it serves as the ETag of every anime listing.
+     */
+    public String catalogVersion() {
+        long window = System.currentTimeMillis() / properties.getPage().getVersionTtl().toMillis();
+        return changeFeed.currentResumeToken() + "-" + window;
     }
+
     public <T> Mono<T> monoResponseStatusNotFoundException(){
-        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+        return Mono.error(() -> new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
     }
 
+    /**
+     * Creates an anime. The id and version are assigned on insert, so a body that already
+     * carries either is rejected rather than sent down Spring Data's update path.
+     */
     public Mono<Anime> save(Anime anime) {
-        return repository.save(anime);
+        if (anime.getId() != 0 || anime.getVersion() != 0) {
+            return Mono.error(new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "New anime can not have an id or version"));
+        }
+        return timed("save", limiter.limit(repository.save(anime))
+                .doOnNext(saved -> cache.invalidate(saved.getId()))
+                .flatMap(saved -> afterCommit(() -> {
+                    evictReads(List.of(saved.getId()));
+                    nameIndex.put(saved);
+                    changeFeed.created(List.of(saved));
+                }).thenReturn(saved)));
     }
 
     public Mono<Void> update(Anime anime) {
-        return findById(anime.getId())
-                .map(animeDb -> anime.withId(animeDb.getId()))
-                .flatMap(repository::save)
-                .thenEmpty(Mono.empty());
+        return timed("update", limiter.limit(repository.updateName(anime.getId(), anime.getName()))
+                .flatMap(this::emptyOrNotFound)
+                .doOnSuccess(updated -> cache.invalidate(anime.getId()))
+                .then(afterCommit(() -> {
+                    evictReads(List.of(anime.getId()));
+                    nameIndex.put(anime);
+                    changeFeed.updated(List.of(anime));
+                })));
+    }
+
+    /**
+     * Renames the anime only while it is still at {@code expectedVersion}, with one UPDATE,
+     * and emits its new version. Fails with 412 when it was changed or deleted meanwhile.
+     */
+    public Mono<Long> update(Anime anime, long expectedVersion) {
+        return timed("update", limiter.limit(repository.updateName(anime.getId(), anime.getName(), expectedVersion))
+                .switchIfEmpty(Mono.error(() -> new StacklessResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                        "Anime was changed or deleted")))
+                .doOnNext(version -> cache.invalidate(anime.getId()))
+                .flatMap(version -> afterCommit(() -> {
+                    evictReads(List.of(anime.getId()));
+                    nameIndex.put(anime);
+                    changeFeed.updated(List.of(anime));
+                }).thenReturn(version)));
     }
 
     public Mono<Void> delete(long id) {
-        return findById(id)
-                .flatMap(repository::delete);
+        return timed("delete", limiter.limit(repository.deleteAnimeById(id))
+                .flatMap(this::emptyOrNotFound)
+                .doOnSuccess(deleted -> cache.invalidate(id))
+                .then(afterCommit(() -> {
+                    evictReads(List.of(id));
+                    nameIndex.remove(id);
+                    changeFeed.deleted(List.of(id));
+                })));
+    }
+
+    /**
+     * Drops the cached anime and encoded responses of {@code ids} and every read still in
+     * flight, so no caller that arrives after a write commits is answered with what was read
+     * before it, including a read that reloaded the cache while the transaction was open.
+     */
+    private void evictReads(Collection<Long> ids) {
+        ids.forEach(cache::invalidate);
+        responseCache.invalidate(ids);
+        coalescer.forgetAll();
+    }
+
+    /** The 400 for an id list longer than {@code lookup.max-ids} or holding a null, as {@code ids=1,,2} binds; null when valid. */
+    private StacklessResponseStatusException invalidIds(List<Long> ids) {
+        if (ids.size() > properties.getLookup().getMaxIds()) {
+            return new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Too many ids");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            return new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid id");
+        }
+        return null;
+    }
+
+    private Mono<Void> emptyOrNotFound(int affectedRows) {
+        return affectedRows == 0 ? monoResponseStatusNotFoundException() : Mono.empty();
+    }
+
+    public Mono<BatchResult> updateAll(List<Anime> animes) {
+        return timed("updateAll", limiter.admit(transactionalOperator.transactional(Flux.fromIterable(animes)
+                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName)
+                .collectMap(Anime::getId, Function.identity(), LinkedHashMap::new)
+                .flatMap(byId -> Flux.fromIterable(byId.values())
+                        .buffer(properties.getBatch().getChunkSize())
+                        .concatMap(repository::updateNames)
+                        .doOnNext(cache::invalidate)
+                        .collect(Collectors.toSet())
+                        .flatMap(updated -> afterCommit(() -> {
+                                    List<Anime> renamed = byId.values().stream()
+                                            .filter(anime -> updated.contains(anime.getId()))
+                                            .toList();
+                                    evictReads(updated);
+                                    nameIndex.putAll(renamed);
+                                    changeFeed.updated(renamed);
+                                })
+                                .thenReturn(BatchResult.of(byId.keySet(), updated)))))));
+    }
+
+    public Mono<BatchResult> deleteAll(List<Long> ids) {
+        StacklessResponseStatusException invalid = invalidIds(ids);
+        if (invalid != null) {
+            return Mono.error(invalid);
+        }
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        return timed("deleteAll", limiter.admit(transactionalOperator.transactional(repository.deleteByIds(distinctIds)
+                .doOnNext(cache::invalidate)
+                .collect(Collectors.toSet())
+                .flatMap(deleted -> afterCommit(() -> {
+                            evictReads(deleted);
+                            nameIndex.removeAll(deleted);
+                            changeFeed.deleted(distinctIds.stream().filter(deleted::contains).toList());
+                        })
+                        .thenReturn(BatchResult.of(distinctIds, deleted))))));
     }
 
-    @Transactional
     public Flux<Anime> saveAllAnime(Iterable<Anime> anime) {
-        return repository.saveAll(Flux.fromIterable(anime))
-                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName);
+        return timed("saveAllAnime", limiter.admit(transactionalOperator.transactional(validateAndInsert(anime))));
+    }
+
+    /**
+     * Inserts each chunk in its own transaction, which takes its own limiter slot before it
+     * starts; the uploader sets the pace, so no slot is held while the next chunk arrives. A
+     * chunk refused because the database is busy is tried again with backoff, and once
+     * ingest.busy-retries is used up the stream ends with 503. Chunks already reported stay
+     * committed, so the client can resume after the last totalRows it saw.
+     */
+    public Flux<IngestProgress> ingest(Flux<Anime> animes) {
+        AnimeProperties.Ingest ingest = properties.getIngest();
+        return timed("ingest", Flux.defer(() -> {
+            AtomicLong totalRows = new AtomicLong();
+            return animes
+                    .windowTimeout(ingest.getChunkSize(), ingest.getMaxWait(), true)
+                    .concatMap(window -> window.collectList()
+                            .filter(chunk -> !chunk.isEmpty())
+                            .flatMap(chunk -> limiter.admit(transactionalOperator.transactional(validateAndInsert(chunk).count()))
+                                    .retryWhen(Retry.backoff(ingest.getBusyRetries(), ingest.getBusyBackoff())
+                                            .filter(RepositoryConcurrencyLimiter::isRejection)
+                                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))))
+                    .index((index, rows) -> new IngestProgress(index + 1, rows, totalRows.addAndGet(rows)));
+        }));
+    }
+
+    private Flux<Anime> validateAndInsert(Iterable<Anime> anime) {
+        return Flux.fromIterable(anime)
+                .doOnNext(this::throwResponseStatusExceptionWhenEmptyName)
+                .collectList()
+                .flatMapMany(this::insertInChunks);
+    }
+
+    private Flux<Anime> insertInChunks(List<Anime> animes) {
+        return Flux.fromIterable(animes)
+                .buffer(properties.getBatch().getChunkSize())
+                .concatMap(chunk -> repository.insertAll(chunk)
+                        .doOnNext(saved -> cache.invalidate(saved.getId()))
+                        .collectList()
+                        .flatMapMany(saved -> afterCommit(() -> {
+                                    evictReads(saved.stream().map(Anime::getId).toList());
+                                    nameIndex.putAll(saved);
+                                    changeFeed.created(saved);
+                                })
+                                .thenMany(Flux.fromIterable(saved))));
+    }
+
+    /**
+     * Runs {@code action} once the surrounding transaction commits, or right away when there
+     * is none, so in-memory views and change subscribers never see rows that were rolled back.
+     */
+    private Mono<Void> afterCommit(Runnable action) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .filter(TransactionSynchronizationManager::isSynchronizationActive)
+                .doOnNext(manager -> manager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCommit() {
+                        return Mono.fromRunnable(action);
+                    }
+                }))
+                .onErrorResume(NoTransactionException.class, error -> Mono.empty())
+                .switchIfEmpty(Mono.fromRunnable(action))
+                .then();
+    }
+
+    private <T> Mono<T> timed(String method, Mono<T> mono) {
+        return mono.name(METRIC_NAME)
+                .tag("method", method)
+                .tap(Micrometer.metrics(meterRegistry));
+    }
+
+    private <T> Flux<T> timed(String method, Flux<T> flux) {
+        return flux.name(METRIC_NAME)
+                .tag("method", method)
+                .tap(Micrometer.metrics(meterRegistry));
     }
 
     private void throwResponseStatusExceptionWhenEmptyName(Anime anime){
         if (StringUtil.isNullOrEmpty(anime.getName())){
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Name");
+            throw new StacklessResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Name");
         }
     }
 }
@@ -0,0 +1,220 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.exception.StacklessResponseStatusException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.R2dbcTransientException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on the database calls in flight. A call past the limit fails right away
+ * with 503 instead of waiting for a pooled connection, so when the database slows down the
+ * excess is shed rather than every request queueing behind it.
+ * <p>
+ * The limit follows TCP Vegas: the shortest round trip seen stands for the database without
+ * load, and {@code limit * (1 - noLoadRtt / rtt)} estimates how many calls are queued in it.
+ * The limit grows while that queue is short and shrinks as it builds up or as calls time out.
+ */
+@Component
+public class RepositoryConcurrencyLimiter {
+
+    public static final String LIMIT_METRIC = "anime.concurrency.limit";
+    public static final String IN_FLIGHT_METRIC = "anime.concurrency.inflight";
+    public static final String REJECTED_METRIC = "anime.concurrency.rejected";
+
+    /** Samples after which the no-load round trip is measured afresh, in case the database got slower for good. */
+    static final int PROBE_SAMPLES = 1000;
+
+    private final AnimeProperties.ConcurrencyLimit config;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+    private volatile int limit;
+    /** The limit before rounding, the no-load round trip and the samples since it was reset; guarded by this. */
+    private double estimate;
+    private long noLoadRtt;
+    private int samples;
+
+    @Autowired
+    public RepositoryConcurrencyLimiter(AnimeProperties properties, MeterRegistry registry) {
+        this(properties.getConcurrencyLimit(), registry, System::nanoTime);
+    }
+
+    RepositoryConcurrencyLimiter(AnimeProperties.ConcurrencyLimit config, MeterRegistry registry, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.estimate = config.getInitialLimit();
+        this.limit = config.getInitialLimit();
+        Gauge.builder(LIMIT_METRIC, this, RepositoryConcurrencyLimiter::getLimit)
+                .description("Database calls currently allowed in flight")
+                .register(registry);
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight, AtomicInteger::get)
+                .description("Database calls currently in flight")
+                .register(registry);
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("Database calls refused with 503 because the limit was reached")
+                .register(registry);
+    }
+
+    /** Runs {@code call} if the limit allows one more in flight, and fails with 503 otherwise. */
+    public <T> Mono<T> limit(Mono<T> call) {
+        return limit(call, true);
+    }
+
+    /** {@link #limit(Mono)} for a call that emits several rows; the round trip lasts until the last one. */
+    public <T> Flux<T> limit(Flux<T> call) {
+        return limit(call, true);
+    }
+
+    /**
+     * Holds one slot for the whole of a transaction, so that it is refused before it takes a
+     * connection rather than part way through. Its length depends on the batch rather than on
+     * the database, so it is not taken as a round-trip sample.
+     */
+    public <T> Mono<T> admit(Mono<T> transaction) {
+        return limit(transaction, false);
+    }
+
+    /** {@link #admit(Mono)} for a transaction that emits several rows. */
+    public <T> Flux<T> admit(Flux<T> transaction) {
+        return limit(transaction, false);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private <T> Mono<T> limit(Mono<T> call, boolean sampled) {
+        if (!config.isEnabled()) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            Permit permit = tryAcquire(sampled);
+            return permit == null ? Mono.error(rejection()) : call.doOnError(permit::failed).doFinally(permit);
+        });
+    }
+
+    private <T> Flux<T> limit(Flux<T> call, boolean sampled) {
+        if (!config.isEnabled()) {
+            return call;
+        }
+        return Flux.defer(() -> {
+            Permit permit = tryAcquire(sampled);
+            return permit == null ? Flux.error(rejection()) : call.doOnError(permit::failed).doFinally(permit);
+        });
+    }
+
+    private Permit tryAcquire(boolean sampled) {
+        for (int current = inFlight.get(); current < limit; current = inFlight.get()) {
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoClock.getAsLong(), current + 1, sampled);
+            }
+        }
+        return null;
+    }
+
+    private Throwable rejection() {
+        rejected.increment();
+        return new Rejection();
+    }
+
+    private synchronized void sample(long rtt, int inFlightAtStart, boolean overloaded) {
+        double log = Math.max(1, Math.log10(estimate));
+        if (overloaded) {
+            update(estimate - log);
+            return;
+        }
+        if (++samples >= PROBE_SAMPLES) {
+            samples = 0;
+            noLoadRtt = 0;
+        }
+        if (noLoadRtt == 0 || rtt < noLoadRtt) {
+            noLoadRtt = rtt;
+            return;
+        }
+        if (inFlightAtStart * 2 < estimate) {
+            return;
+        }
+        double queued = Math.ceil(estimate * (1 - (double) noLoadRtt / rtt));
+        if (queued <= log) {
+            update(estimate + 6 * log);
+        } else if (queued < 3 * log) {
+            update(estimate + log);
+        } else if (queued > 6 * log) {
+            update(estimate - log);
+        }
+    }
+
+    private void update(double next) {
+        estimate = Math.min(config.getMaxLimit(), Math.max(config.getMinLimit(), next));
+        limit = (int) estimate;
+    }
+
+    /** Whether {@code error} is this limiter refusing a call, which can be tried again later. */
+    static boolean isRejection(Throwable error) {
+        return error instanceof Rejection;
+    }
+
+    /** Errors that say the database is overloaded, rather than that the call itself was wrong. */
+    static boolean isOverload(Throwable error) {
+        return error instanceof TimeoutException
+                || error instanceof R2dbcTransientException
+                || error instanceof TransientDataAccessException
+                || error instanceof DataAccessResourceFailureException;
+    }
+
+    private static final class Rejection extends StacklessResponseStatusException {
+
+        private Rejection() {
+            super(HttpStatus.SERVICE_UNAVAILABLE, "Database busy");
+        }
+    }
+
+    /**
+     * One admitted call. A completed sampled call is a round-trip sample, an overload error
+     * shrinks the limit, and other errors or a cancellation only give the slot back.
+     */
+    private final class Permit implements Consumer<SignalType> {
+
+        private final long start;
+        private final int inFlightAtStart;
+        private final boolean sampled;
+        private boolean overloaded;
+
+        private Permit(long start, int inFlightAtStart, boolean sampled) {
+            this.start = start;
+            this.inFlightAtStart = inFlightAtStart;
+            this.sampled = sampled;
+        }
+
+        void failed(Throwable error) {
+            overloaded = isOverload(error);
+        }
+
+        @Override
+        public void accept(SignalType signal) {
+            inFlight.decrementAndGet();
+            if (sampled && signal == SignalType.ON_COMPLETE || overloaded) {
+                sample(Math.max(1, nanoClock.getAsLong() - start), inFlightAtStart, overloaded);
+            }
+        }
+    }
+}
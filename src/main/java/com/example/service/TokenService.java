@@ -0,0 +1,124 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.AccessToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and checks stateless HMAC-SHA256 signed tokens. A token is
+ * {@code base64url(expiry \n authorities \n username) . base64url(signature)}, so checking
+ * one needs neither the database nor the password encoder.
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    public static final String TOKEN_TYPE = "Bearer";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    @Autowired
+    public TokenService(AnimeProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    TokenService(AnimeProperties properties, Clock clock) {
+        AnimeProperties.Token config = properties.getSecurity().getToken();
+        this.key = new SecretKeySpec(secret(config.getSecret()), ALGORITHM);
+        this.ttl = config.getTtl();
+        this.clock = clock;
+    }
+
+    public AccessToken issue(Authentication authentication) {
+        long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+        String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        byte[] payload = (expiresAt + "\n" + authorities + "\n" + authentication.getName())
+                .getBytes(StandardCharsets.UTF_8);
+        String token = ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+        return new AccessToken(token, TOKEN_TYPE, ttl.toSeconds());
+    }
+
+    /**
+     * Returns the authentication carried by the token, or empty when the token is
+     * malformed, has a bad signature or has expired.
+     */
+    public Optional<Authentication> verify(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 1 || dot == token.length() - 1) {
+            return Optional.empty();
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            return Optional.empty();
+        }
+        String[] claims = new String(payload, StandardCharsets.UTF_8).split("\n", 3);
+        if (claims.length != 3 || Long.parseLong(claims[0]) <= clock.instant().getEpochSecond()) {
+            return Optional.empty();
+        }
+        return Optional.of(new PreAuthenticatedAuthenticationToken(claims[2], token,
+                AuthorityUtils.commaSeparatedStringToAuthorityList(claims[1])));
+    }
+
+    private byte[] sign(byte[] payload) {
+        return macs.get().doFinal(payload);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can not create " + ALGORITHM + " signer", e);
+        }
+    }
+
+    private static byte[] secret(String configured) {
+        if (!StringUtils.hasText(configured)) {
+            log.warn("anime.security.token.secret is not set, tokens will only be valid on this instance until it restarts");
+            byte[] random = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] secret = configured.getBytes(StandardCharsets.UTF_8);
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("anime.security.token.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return secret;
+    }
+}
@@ -1,21 +1,52 @@
 package com.example.service;
 
+import com.example.configuration.AnimeProperties;
 import com.example.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
 @Service
-public class UserService implements ReactiveUserDetailsService {
+public class UserService implements ReactiveUserDetailsService, MeterBinder {
 
     private final UserRepository repository;
+    private final RepositoryConcurrencyLimiter limiter;
+    private final AsyncCache<String, UserDetails> cache;
+
+    public UserService(UserRepository repository, RepositoryConcurrencyLimiter limiter, AnimeProperties properties) {
+        AnimeProperties.UserCache config = properties.getSecurity().getUserCache();
+        this.repository = repository;
+        this.limiter = limiter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+    }
 
     @Override
     public Mono<UserDetails> findByUsername(String username) {
-        return repository.findByUsername(username)
-                .cast(UserDetails.class);
+        return Mono.fromFuture(() -> cache.get(username, (key, executor) -> limiter.limit(repository.findByUsername(key))
+                .cast(UserDetails.class)
+                .toFuture()), true);
+    }
+
+    public void evict(String username) {
+        cache.synchronous().invalidate(username);
+    }
+
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
     }
 }
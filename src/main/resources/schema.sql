@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS anime (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 1
+);
+
+-- Added after the table was first created; optimistic locking and ETags for GET/PUT /anime.
+ALTER TABLE anime ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 1;
+
+CREATE TABLE IF NOT EXISTS anime_user (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255),
+    username VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    authorities VARCHAR(255) NOT NULL
+);
+
+-- Trigram index behind GET /anime/search, used by ILIKE for both prefix and substring patterns.
+-- Needs the pg_trgm extension, created beforehand by docker/initdb/01-extensions.sql.
+CREATE INDEX IF NOT EXISTS anime_name_trgm_idx ON anime USING gin (name gin_trgm_ops);
@@ -1,11 +1,18 @@
 package com.example;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import reactor.blockhound.BlockHound;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.sql.init.mode=never")
 class SpringWebFluxPracticeApplicationTests {
 
+	@BeforeAll
+	public static void blockhoundSetUp(){
+		BlockHound.install();
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,41 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.blockhound.BlockingMethod;
+import reactor.blockhound.BlockingOperationError;
+
+import java.time.Duration;
+
+class BlockingCallReporterTest {
+
+    private static final BlockingMethod SLEEP = new BlockingMethod("java/lang/Thread", "sleep", 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("accept counts blocking calls per method without throwing in report mode")
+    public void accept_CountsCalls_WhenReporting(){
+        BlockingCallReporter reporter = new BlockingCallReporter(false, Duration.ofHours(1));
+
+        reporter.accept(SLEEP);
+        reporter.bindTo(registry);
+        reporter.accept(SLEEP);
+
+        Assertions.assertEquals(2, reporter.count("java.lang.Thread.sleep"));
+        Assertions.assertEquals(2, registry.get(BlockingCallReporter.METRIC_NAME)
+                .tag("method", "java.lang.Thread.sleep")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("accept counts the blocking call and then fails it in strict mode")
+    public void accept_ThrowsBlockingOperationError_WhenStrict(){
+        BlockingCallReporter reporter = new BlockingCallReporter(true, Duration.ofHours(1));
+
+        Assertions.assertThrows(BlockingOperationError.class, () -> reporter.accept(SLEEP));
+        Assertions.assertEquals(1, reporter.count("java.lang.Thread.sleep"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.configuration;
+
+import com.example.domain.Anime;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+
+class CodecConfigurationTest {
+
+    private final CodecConfiguration.SmileArrayEncoder encoder = new CodecConfiguration.SmileArrayEncoder(
+            Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+
+    @Test
+    @DisplayName("SmileArrayEncoder only offers the Smile media type")
+    public void smileArrayEncoder_EncodesSmileOnly(){
+        Assertions.assertEquals(List.of(CodecConfiguration.APPLICATION_SMILE), encoder.getEncodableMimeTypes());
+        Assertions.assertTrue(encoder.canEncode(ResolvableType.forClass(Anime.class), CodecConfiguration.APPLICATION_SMILE));
+    }
+
+    @Test
+    @DisplayName("SmileArrayEncoder writes a Flux as one Smile array")
+    public void smileArrayEncoder_WritesFluxAsSmileArray() throws Exception {
+        byte[] bytes = DataBufferUtils.join(encoder.encode(Flux.just(new Anime(1, "Naruto"), new Anime(2, "Bleach")),
+                        DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(Anime.class),
+                        CodecConfiguration.APPLICATION_SMILE, Map.of()))
+                .map(buffer -> {
+                    byte[] content = new byte[buffer.readableByteCount()];
+                    buffer.read(content);
+                    DataBufferUtils.release(buffer);
+                    return content;
+                })
+                .block();
+
+        List<Anime> animes = new ObjectMapper(new SmileFactory()).readValue(bytes, new TypeReference<>() {});
+
+        Assertions.assertEquals(List.of(new Anime(1, "Naruto"), new Anime(2, "Bleach")), animes);
+    }
+}
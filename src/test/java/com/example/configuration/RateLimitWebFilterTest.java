@@ -0,0 +1,170 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+class RateLimitWebFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger passed = new AtomicInteger();
+    private final AnimeProperties.RateLimit config = new AnimeProperties.RateLimit();
+    private final RateLimitWebFilter filter;
+
+    private final Authentication user = authentication("user", "ROLE_USER");
+    private final Authentication admin = authentication("admin", "ROLE_USER", "ROLE_ADMIN");
+
+    RateLimitWebFilterTest() {
+        config.setReads(Map.of("USER", new AnimeProperties.Limit(2, 1), "ADMIN", new AnimeProperties.Limit(4, 2)));
+        config.setWrites(Map.of("ADMIN", new AnimeProperties.Limit(1, 1)));
+        filter = new RateLimitWebFilter(config, Stream.of("/anime", "/anime/{id}", "/anime/search")
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList(), registry, clock::get);
+    }
+
+    @Test
+    @DisplayName("filter lets the burst through, then answers 429 with Retry-After without calling the chain")
+    public void filter_Returns429_WhenBucketIsEmpty(){
+        Assertions.assertNull(get("/anime/1", user).getResponse().getStatusCode());
+        Assertions.assertNull(get("/anime/1", user).getResponse().getStatusCode());
+        MockServerWebExchange rejected = get("/anime/1", user);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        Assertions.assertEquals("1", rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals(2, passed.get());
+        Assertions.assertEquals(1.0, registry.get(RateLimitWebFilter.REJECTED_METRIC).tag("kind", "read").counter().count());
+    }
+
+    @Test
+    @DisplayName("filter allows requests again as the bucket refills at the configured rate")
+    public void filter_AllowsAgain_AfterRefill(){
+        get("/anime", user);
+        get("/anime", user);
+        clock.addAndGet(Duration.ofMillis(999).toNanos());
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("/anime", user).getResponse().getStatusCode());
+
+        clock.addAndGet(Duration.ofMillis(1).toNanos());
+
+        Assertions.assertNull(get("/anime", user).getResponse().getStatusCode());
+        Assertions.assertEquals(3, passed.get());
+    }
+
+    @Test
+    @DisplayName("filter keeps one bucket per principal and route, with ids folded into the route")
+    public void filter_KeepsBucketsPerPrincipalAndRoute(){
+        get("/anime/1", user);
+        get("/anime/2", user);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("/anime/3", user).getResponse().getStatusCode());
+        Assertions.assertNull(get("/anime/search", user).getResponse().getStatusCode());
+        Assertions.assertNull(get("/anime/1", authentication("other", "ROLE_USER")).getResponse().getStatusCode());
+        Assertions.assertEquals(3.0, registry.get(RateLimitWebFilter.BUCKETS_METRIC).gauge().value());
+    }
+
+    @Test
+    @DisplayName("filter keys buckets on the matched route, whatever matrix parameters or encoding the path uses")
+    public void filter_SharesBucket_AcrossPathSpellingsOfOneRoute(){
+        get("/anime;n=1", user);
+        get("/anime;n=2", user);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("/anime;n=3", user).getResponse().getStatusCode());
+
+        get("/anime/1;x=1", user);
+        get("/anime/%32", user);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("/anime/3;x=2", user).getResponse().getStatusCode());
+        Assertions.assertEquals(2.0, registry.get(RateLimitWebFilter.BUCKETS_METRIC).gauge().value());
+    }
+
+    @Test
+    @DisplayName("filter puts paths that no handler maps in one bucket per method")
+    public void filter_SharesBucket_ForUnmappedPaths(){
+        get("/anime/search/a", user);
+        get("/made-up/1", user);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("/made-up/2", user).getResponse().getStatusCode());
+        Assertions.assertEquals(1.0, registry.get(RateLimitWebFilter.BUCKETS_METRIC).gauge().value());
+    }
+
+    @Test
+    @DisplayName("filter applies the highest limit of the principal's roles, and write limits to write routes")
+    public void filter_AppliesRoleLimits(){
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertNull(get("/anime", admin).getResponse().getStatusCode());
+        }
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS, get("/anime", admin).getResponse().getStatusCode());
+
+        Assertions.assertNull(exchange(MockServerHttpRequest.delete("/anime/1"), admin).getResponse().getStatusCode());
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS,
+                exchange(MockServerHttpRequest.delete("/anime/2"), admin).getResponse().getStatusCode());
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertNull(exchange(MockServerHttpRequest.post("/anime"), user).getResponse().getStatusCode());
+        }
+    }
+
+    @Test
+    @DisplayName("filter does not limit unauthenticated requests or anything when disabled")
+    public void filter_Passes_WhenUnauthenticatedOrDisabled(){
+        for (int i = 0; i < 5; i++) {
+            filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/anime")), exchange -> {
+                passed.incrementAndGet();
+                return Mono.empty();
+            }).block();
+        }
+        config.setEnabled(false);
+        for (int i = 0; i < 5; i++) {
+            get("/anime", user);
+        }
+
+        Assertions.assertEquals(10, passed.get());
+    }
+
+    @Test
+    @DisplayName("filter drops buckets left idle past the idle timeout")
+    public void filter_DropsIdleBuckets(){
+        get("/anime", user);
+        get("/anime", user);
+
+        clock.addAndGet(config.getIdleTimeout().toNanos() + 1);
+        Assertions.assertNull(get("/anime/1", user).getResponse().getStatusCode());
+
+        Assertions.assertEquals(1.0, registry.get(RateLimitWebFilter.BUCKETS_METRIC).gauge().value());
+    }
+
+    private MockServerWebExchange get(String path, Authentication authentication){
+        return exchange(MockServerHttpRequest.get(path), authentication);
+    }
+
+    private MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, Authentication authentication){
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        filter.filter(exchange, filtered -> {
+                    passed.incrementAndGet();
+                    return Mono.empty();
+                })
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                .block();
+        return exchange;
+    }
+
+    private static Authentication authentication(String name, String... roles){
+        return new UsernamePasswordAuthenticationToken(name, "n/a", AuthorityUtils.createAuthorityList(roles));
+    }
+}
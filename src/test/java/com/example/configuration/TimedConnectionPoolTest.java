@@ -0,0 +1,100 @@
+package com.example.configuration;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ValidationDepth;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class TimedConnectionPoolTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration
+            .builder(connectionFactory())
+            .maxSize(1)
+            .build());
+
+    private final TimedConnectionPool timedPool = new TimedConnectionPool(pool, "connectionFactory", registry);
+
+    @AfterEach
+    public void tearDown(){
+        timedPool.dispose();
+    }
+
+    @Test
+    @DisplayName("create records the time spent acquiring a connection")
+    public void create_RecordsAcquireTime(){
+        StepVerifier.create(timedPool.create().flatMap(connection -> Mono.from(connection.close())))
+                .expectSubscription()
+                .verifyComplete();
+
+        Assertions.assertEquals(1, registry.get(TimedConnectionPool.ACQUIRE_TIMER)
+                .tag("name", "connectionFactory")
+                .tag("outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("create records acquisitions that fail as errors")
+    public void create_RecordsFailedAcquire(){
+        ConnectionFactory broken = Mockito.mock(ConnectionFactory.class);
+        BDDMockito.doReturn(Mono.error(new IllegalStateException("refused"))).when(broken).create();
+        TimedConnectionPool brokenPool = new TimedConnectionPool(new ConnectionPool(ConnectionPoolConfiguration
+                .builder(broken)
+                .maxSize(1)
+                .build()), "broken", registry);
+
+        StepVerifier.create(brokenPool.create())
+                .expectError()
+                .verify();
+        brokenPool.dispose();
+
+        Assertions.assertEquals(1, registry.get(TimedConnectionPool.ACQUIRE_TIMER)
+                .tags("name", "broken", "outcome", "error")
+                .timer().count());
+        Assertions.assertEquals(0, registry.get(TimedConnectionPool.ACQUIRE_TIMER)
+                .tags("name", "broken", "outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("create records acquisitions given up while waiting as cancelled")
+    public void create_RecordsCancelledAcquire(){
+        Connection held = timedPool.create().block();
+
+        StepVerifier.create(timedPool.create())
+                .expectSubscription()
+                .thenCancel()
+                .verify();
+        Mono.from(held.close()).block();
+
+        Assertions.assertEquals(1, registry.get(TimedConnectionPool.ACQUIRE_TIMER)
+                .tags("name", "connectionFactory", "outcome", "cancel")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("unwrap returns the pool so the pool gauges can find it")
+    public void unwrap_ReturnsPool(){
+        Assertions.assertSame(pool, timedPool.unwrap());
+    }
+
+    private static ConnectionFactory connectionFactory(){
+        Connection connection = Mockito.mock(Connection.class);
+        BDDMockito.when(connection.validate(ValidationDepth.LOCAL)).thenReturn(Mono.just(true));
+        BDDMockito.when(connection.close()).thenReturn(Mono.empty());
+        ConnectionFactory connectionFactory = Mockito.mock(ConnectionFactory.class);
+        BDDMockito.doReturn(Mono.just(connection)).when(connectionFactory).create();
+        return connectionFactory;
+    }
+}
@@ -1,6 +1,15 @@
 package com.example.controller;
 
+import com.example.configuration.AnimeProperties;
+import com.example.configuration.CodecConfiguration;
 import com.example.domain.Anime;
+import com.example.domain.AnimeChange;
+import com.example.domain.AnimeLookup;
+import com.example.domain.AnimePage;
+import com.example.domain.AnimeSuggestion;
+import com.example.domain.BatchResult;
+import com.example.domain.IngestProgress;
+import com.example.service.AnimeResponseCache;
 import com.example.service.AnimeService;
 import com.example.util.AnimeCreator;
 import org.junit.jupiter.api.*;
@@ -9,7 +18,18 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.reactive.accept.HeaderContentTypeResolver;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
+import org.springframework.web.server.NotAcceptableStatusException;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.blockhound.BlockHound;
 import reactor.blockhound.BlockingOperationError;
@@ -18,6 +38,9 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -31,6 +54,12 @@ class AnimeControllerTest {
     @Mock
     private AnimeService service;
 
+    @Spy
+    private AnimeProperties properties = new AnimeProperties();
+
+    @Spy
+    private RequestedContentTypeResolver contentTypeResolver = new HeaderContentTypeResolver();
+
     private final Anime anime = AnimeCreator.createValidAnime();
 
     @BeforeAll
@@ -40,11 +69,35 @@ class AnimeControllerTest {
 
     @BeforeEach
     public void setUpMock(){
-        BDDMockito.when(service.getAllAnimes())
+        BDDMockito.when(service.getEncodedPage(null, null, MediaType.APPLICATION_JSON))
+                .thenReturn(Mono.just(encoded(new AnimePage(List.of(anime), null), "[page]")));
+
+        BDDMockito.when(service.getEncodedPage(0L, 1, MediaType.APPLICATION_JSON))
+                .thenReturn(Mono.just(encoded(new AnimePage(List.of(anime), anime.getId()), "[page]")));
+
+        BDDMockito.when(service.streamAll())
                 .thenReturn(Flux.just(anime));
 
-        BDDMockito.when(service.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Mono.just(anime));
+        BDDMockito.when(service.findEncodedById(ArgumentMatchers.anyLong(), ArgumentMatchers.eq(MediaType.APPLICATION_JSON)))
+                .thenReturn(Mono.just(encoded(anime, "{json}")));
+
+        BDDMockito.when(service.findEncodedById(ArgumentMatchers.anyLong(), ArgumentMatchers.eq(CodecConfiguration.APPLICATION_SMILE)))
+                .thenReturn(Mono.just(encoded(anime, "{smile}")));
+
+        BDDMockito.when(service.findByIds(List.of(1L, 2L)))
+                .thenReturn(Mono.just(new AnimeLookup(List.of(anime), List.of(2L))));
+
+        BDDMockito.when(service.search("naru", null))
+                .thenReturn(Flux.just(anime));
+
+        BDDMockito.when(service.changes("1"))
+                .thenReturn(Flux.just(new AnimeChange(2, AnimeChange.Type.UPDATED, 1, anime.getName())));
+
+        BDDMockito.when(service.resumeToken(ArgumentMatchers.any()))
+                .thenReturn("2");
+
+        BDDMockito.when(service.suggest("meh", null))
+                .thenReturn(Mono.just(List.of(new AnimeSuggestion(anime.getId(), anime.getName()))));
 
         BDDMockito.when(service.save(AnimeCreator.createAnimeToBeSaved()))
                 .thenReturn(Mono.just(anime));
@@ -52,11 +105,26 @@ class AnimeControllerTest {
         BDDMockito.when(service.saveAllAnime(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
                 .thenReturn(Flux.just(anime, anime));
 
+        BDDMockito.when(service.ingest(ArgumentMatchers.any()))
+                .thenReturn(Flux.just(new IngestProgress(1, 2, 2)));
+
+        BDDMockito.when(service.updateAll(List.of(anime)))
+                .thenReturn(Mono.just(new BatchResult(List.of(anime.getId()), List.of())));
+
+        BDDMockito.when(service.deleteAll(List.of(1L, 2L)))
+                .thenReturn(Mono.just(new BatchResult(List.of(1L), List.of(2L))));
+
         BDDMockito.when(service.delete(ArgumentMatchers.anyLong()))
                 .thenReturn(Mono.empty());
 
         BDDMockito.when(service.update(AnimeCreator.createValidAnime()))
                 .thenReturn(Mono.empty());
+
+        BDDMockito.when(service.update(AnimeCreator.createValidAnime(), 3))
+                .thenReturn(Mono.just(4L));
+
+        BDDMockito.when(service.catalogVersion())
+                .thenReturn("catalog-7");
     }
 
     @Test
@@ -78,23 +146,179 @@ class AnimeControllerTest {
     }
 
     @Test
-    @DisplayName("listAllAnime returns a flux of anime")
+    @DisplayName("listAllAnime returns a page of anime")
     public void listAllAnime_ReturnFlux_OfAnime_WhenSuccessful(){
-        StepVerifier.create(controller.listAll())
+        StepVerifier.create(controller.listAll(null, null, exchange()))
+                .expectSubscription()
+                .assertNext(response -> {
+                    Assertions.assertEquals("[page]", text(response.getBody()));
+                    Assertions.assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+                    Assertions.assertFalse(response.getHeaders().containsKey(AnimeController.NEXT_CURSOR_HEADER));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAllAnime returns the next cursor when there are more pages")
+    public void listAllAnime_ReturnNextCursor_WhenPageIsFull(){
+        StepVerifier.create(controller.listAll(0L, 1, exchange()))
+                .expectSubscription()
+                .assertNext(response -> Assertions.assertEquals(String.valueOf(anime.getId()),
+                        response.getHeaders().getFirst(AnimeController.NEXT_CURSOR_HEADER)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAllAnime tags the page with the catalog version")
+    public void listAllAnime_ReturnCatalogETag(){
+        StepVerifier.create(controller.listAll(null, null, exchange()))
+                .expectSubscription()
+                .assertNext(response -> Assertions.assertEquals("\"catalog-7\"", response.getHeaders().getETag()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("listAllAnime answers 304 without loading the page when the catalog has not changed")
+    public void listAllAnime_ReturnNotModified_WhenCatalogETagMatches(){
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime")
+                .ifNoneMatch("\"catalog-7\""));
+
+        StepVerifier.create(controller.listAll(null, null, exchange))
+                .expectSubscription()
+                .verifyComplete();
+
+        Assertions.assertEquals(HttpStatus.NOT_MODIFIED, exchange.getResponse().getStatusCode());
+        Assertions.assertEquals(List.of(HttpHeaders.ACCEPT), exchange.getResponse().getHeaders().getVary());
+        BDDMockito.verify(service, Mockito.never()).getEncodedPage(ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("streamAll returns a flux of anime")
+    public void streamAll_ReturnFlux_OfAnime_WhenSuccessful(){
+        StepVerifier.create(controller.streamAll())
                 .expectSubscription()
                 .expectNext(anime)
                 .verifyComplete();
     }
 
     @Test
-    @DisplayName("findById returns a Mono of anime when it exists")
+    @DisplayName("streamAllEvents returns one event per anime with the id as event id")
+    public void streamAllEvents_ReturnFlux_OfEvents_WhenSuccessful(){
+        StepVerifier.create(controller.streamAllEvents())
+                .expectSubscription()
+                .assertNext(event -> {
+                    Assertions.assertEquals(anime, event.data());
+                    Assertions.assertEquals(String.valueOf(anime.getId()), event.id());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findById returns the cached body of the anime when it exists")
     public void findById_ReturnMono_OfAnime_When_ItExists(){
-        StepVerifier.create(controller.getAnimeById(1))
+        StepVerifier.create(controller.getAnimeById(1, exchange()))
+                .expectSubscription()
+                .assertNext(response -> {
+                    Assertions.assertEquals("{json}", text(response.getBody()));
+                    Assertions.assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+                    Assertions.assertEquals("\"" + anime.getVersion() + "\"", response.getHeaders().getETag());
+                    Assertions.assertEquals(List.of(HttpHeaders.ACCEPT), response.getHeaders().getVary());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findById returns the Smile body when the client prefers Smile")
+    public void findById_ReturnSmileBody_WhenAccepted(){
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1")
+                .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"));
+
+        StepVerifier.create(controller.getAnimeById(1, exchange))
+                .expectSubscription()
+                .assertNext(response -> {
+                    Assertions.assertEquals("{smile}", text(response.getBody()));
+                    Assertions.assertEquals(CodecConfiguration.APPLICATION_SMILE, response.getHeaders().getContentType());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findById returns 406 when the client accepts neither JSON nor Smile")
+    public void findById_ReturnNotAcceptable_WhenNoCachedTypeAccepted(){
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/anime/1")
+                .accept(MediaType.APPLICATION_XML));
+
+        StepVerifier.create(controller.getAnimeById(1, exchange))
+                .expectSubscription()
+                .expectErrorMatches(error -> error instanceof NotAcceptableStatusException)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("findByIds returns the found anime and the missing ids")
+    public void findByIds_ReturnsAnimeLookup_WhenSuccessful(){
+        StepVerifier.create(controller.findByIds(List.of(1L, 2L)))
+                .expectSubscription()
+                .expectNext(new AnimeLookup(List.of(anime), List.of(2L)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("search returns a flux of matching anime")
+    public void search_ReturnFlux_OfAnime_WhenSuccessful(){
+        StepVerifier.create(controller.search("naru", null))
                 .expectSubscription()
                 .expectNext(anime)
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("suggest returns the anime whose name starts with the prefix")
+    public void suggest_ReturnList_OfAnime_WhenSuccessful(){
+        StepVerifier.create(controller.suggest("meh", null))
+                .expectSubscription()
+                .expectNext(List.of(new AnimeSuggestion(anime.getId(), anime.getName())))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("changes returns server-sent events named after the change, with its resume token as id")
+    public void changes_ReturnEvents_WithResumeToken(){
+        StepVerifier.withVirtualTime(() -> controller.changes("1").filter(event -> event.comment() == null))
+                .expectSubscription()
+                .assertNext(event -> {
+                    Assertions.assertEquals("2", event.id());
+                    Assertions.assertEquals("updated", event.event());
+                    Assertions.assertEquals(1, event.data().id());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("changes sends a heartbeat comment right away and then on every interval")
+    public void changes_SendsHeartbeats_WhileIdle(){
+        BDDMockito.when(service.changes(null))
+                .thenReturn(Flux.never());
+
+        StepVerifier.withVirtualTime(() -> controller.changes(null))
+                .expectSubscription()
+                .assertNext(event -> Assertions.assertEquals("", event.comment()))
+                .thenAwait(properties.getChanges().getHeartbeat())
+                .assertNext(event -> Assertions.assertEquals("", event.comment()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("lookup returns the found anime and the missing ids")
+    public void lookup_ReturnsAnimeLookup_WhenSuccessful(){
+        StepVerifier.create(controller.lookup(List.of(1L, 2L)))
+                .expectSubscription()
+                .expectNext(new AnimeLookup(List.of(anime), List.of(2L)))
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("save creates an anime when successful")
     public void save_Creates_AnAnime_WhenSuccessful(){
@@ -117,6 +341,35 @@ class AnimeControllerTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("streamingBatchSave reports progress per committed chunk")
+    public void streamingBatchSave_ReturnsProgress_WhenSuccessful(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+
+        StepVerifier.create(controller.streamingBatchSave(Flux.just(animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(new IngestProgress(1, 2, 2))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("batchUpdate returns the updated and missing ids")
+    public void batchUpdate_ReturnsBatchResult_WhenSuccessful(){
+        StepVerifier.create(controller.batchUpdate(List.of(anime)))
+                .expectSubscription()
+                .expectNext(new BatchResult(List.of(anime.getId()), List.of()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("batchDelete returns the deleted and missing ids")
+    public void batchDelete_ReturnsBatchResult_WhenSuccessful(){
+        StepVerifier.create(controller.batchDelete(List.of(1L, 2L)))
+                .expectSubscription()
+                .expectNext(new BatchResult(List.of(1L), List.of(2L)))
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("delete removes an anime when successful")
     public void delete_Removes_AnAnime_whenSuccessful(){
@@ -129,8 +382,40 @@ class AnimeControllerTest {
     @DisplayName("save updated anime and returns empty mono when successful")
     public void saveUpdatedAnime_WhenSuccessful(){
         Anime validAnime = AnimeCreator.createValidAnime();
-        StepVerifier.create(controller.updateAnime(AnimeCreator.createValidAnime()))
+        StepVerifier.create(controller.updateAnime(AnimeCreator.createValidAnime(), null))
                 .expectSubscription()
+                .assertNext(response -> Assertions.assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode()))
                 .verifyComplete();
     }
+
+    @Test
+    @DisplayName("update with If-Match renames only at that version and returns the new ETag")
+    public void updateAnime_WithIfMatch_ReturnsNewETag(){
+        StepVerifier.create(controller.updateAnime(AnimeCreator.createValidAnime(), "\"3\""))
+                .expectSubscription()
+                .assertNext(response -> Assertions.assertEquals("\"4\"", response.getHeaders().getETag()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("update with an If-Match that is not a version ETag returns 412")
+    public void updateAnime_ReturnsPreconditionFailed_WhenIfMatchIsNotAVersion(){
+        StepVerifier.create(controller.updateAnime(AnimeCreator.createValidAnime(), "W/\"3\""))
+                .expectSubscription()
+                .expectErrorMatches(error -> error instanceof ResponseStatusException status
+                        && status.getStatusCode() == HttpStatus.PRECONDITION_FAILED)
+                .verify();
+    }
+
+    private static <T> AnimeResponseCache.Encoded<T> encoded(T value, String body) {
+        return new AnimeResponseCache.Encoded<>(value, ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer());
+    }
+
+    private static String text(DataBuffer buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/anime"));
+    }
 }
\ No newline at end of file
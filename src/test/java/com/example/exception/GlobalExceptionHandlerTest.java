@@ -0,0 +1,120 @@
+package com.example.exception;
+
+import com.example.configuration.CodecConfiguration;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.WebProperties;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.Set;
+
+class GlobalExceptionHandlerTest {
+
+    private final GenericApplicationContext context = new GenericApplicationContext();
+    private GlobalExceptionHandler handler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        context.refresh();
+        handler = new GlobalExceptionHandler(new CustomAttributes(), new WebProperties.Resources(), context,
+                ServerCodecConfigurer.create());
+        handler.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        context.close();
+    }
+
+    @Test
+    @DisplayName("handle writes the response status error body with its fields escaped")
+    public void handle_WritesResponseStatusErrorBody() throws Exception {
+        MockServerWebExchange exchange = render("/anime/42",
+                new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime \"42\" not found"));
+
+        Map<String, Object> body = new ObjectMapper().readValue(exchange.getResponse().getBodyAsString().block(),
+                new TypeReference<>() {});
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, exchange.getResponse().getStatusCode());
+        Assertions.assertEquals(MediaType.APPLICATION_JSON, exchange.getResponse().getHeaders().getContentType());
+        Assertions.assertEquals(Set.of("timestamp", "path", "requestId", "status", "error", "message",
+                "developerMessage"), body.keySet());
+        Assertions.assertTrue(body.get("timestamp").toString().matches("\\d{4}-\\d{2}-\\d{2}T[\\d:.]{12}\\+00:00"));
+        Assertions.assertEquals("/anime/42", body.get("path"));
+        Assertions.assertEquals(exchange.getRequest().getId(), body.get("requestId"));
+        Assertions.assertEquals(404, body.get("status"));
+        Assertions.assertEquals("Not Found", body.get("error"));
+        Assertions.assertEquals("404 NOT_FOUND \"Anime \"42\" not found\"", body.get("message"));
+        Assertions.assertEquals(CustomAttributes.DEVELOPER_MESSAGE, body.get("developerMessage"));
+    }
+
+    @Test
+    @DisplayName("handle includes the stack trace only when trace is requested")
+    public void handle_IncludesTrace_WhenRequested(){
+        ResponseStatusException error = new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Name");
+
+        String plain = render("/anime", error).getResponse().getBodyAsString().block();
+        String traced = render("/anime?trace=true", error).getResponse().getBodyAsString().block();
+
+        Assertions.assertFalse(plain.contains("\"trace\""), plain);
+        Assertions.assertTrue(traced.contains("\"trace\":\"org.springframework.web.server.ResponseStatusException"), traced);
+    }
+
+    @Test
+    @DisplayName("handle writes the same error fields as Smile when the client prefers it")
+    public void handle_WritesSmileErrorBody_WhenAccepted() throws Exception {
+        MockServerWebExchange exchange = render(MockServerHttpRequest.get("/anime/42")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/x-jackson-smile"),
+                new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+
+        byte[] bytes = DataBufferUtils.join(exchange.getResponse().getBody())
+                .map(buffer -> {
+                    byte[] content = new byte[buffer.readableByteCount()];
+                    buffer.read(content);
+                    return content;
+                })
+                .block();
+        Map<String, Object> body = new ObjectMapper(new SmileFactory()).readValue(bytes, new TypeReference<>() {});
+
+        Assertions.assertEquals(CodecConfiguration.APPLICATION_SMILE, exchange.getResponse().getHeaders().getContentType());
+        Assertions.assertEquals(Set.of("timestamp", "path", "requestId", "status", "error", "message",
+                "developerMessage"), body.keySet());
+        Assertions.assertEquals(404, body.get("status"));
+        Assertions.assertEquals("/anime/42", body.get("path"));
+    }
+
+    @Test
+    @DisplayName("handle falls back to JSON when the client accepts neither JSON nor Smile")
+    public void handle_WritesJson_WhenNoSupportedTypeAccepted(){
+        MockServerWebExchange exchange = render(MockServerHttpRequest.get("/anime/42")
+                        .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_XML_VALUE),
+                new StacklessResponseStatusException(HttpStatus.NOT_FOUND, "Anime not found"));
+
+        Assertions.assertEquals(MediaType.APPLICATION_JSON, exchange.getResponse().getHeaders().getContentType());
+    }
+
+    private MockServerWebExchange render(String uri, Throwable error){
+        return render(MockServerHttpRequest.get(uri), error);
+    }
+
+    private MockServerWebExchange render(MockServerHttpRequest.BaseBuilder<?> request, Throwable error){
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        handler.handle(exchange, error).block();
+        return exchange;
+    }
+}
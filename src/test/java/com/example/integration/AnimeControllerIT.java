@@ -5,12 +5,17 @@ import com.example.exception.CustomAttributes;
 import com.example.repository.AnimeRepository;
 import com.example.service.AnimeService;
 import com.example.util.AnimeCreator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -47,14 +52,12 @@ public class AnimeControllerIT {
 
     private Anime anime = AnimeCreator.createValidAnime();
 
-//    @BeforeAll
-//    public static void blockhoundSetUp(){
-//        BlockHound.install();
-//    }
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     public void setUpMock() {
-        BDDMockito.when(animeRepository.findAll())
+        BDDMockito.when(animeRepository.findPage(ArgumentMatchers.anyLong(), ArgumentMatchers.anyInt()))
                 .thenReturn(Flux.just(anime));
 
         BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
@@ -63,33 +66,27 @@ public class AnimeControllerIT {
         BDDMockito.when(animeRepository.save(AnimeCreator.createAnimeToBeSaved()))
                 .thenReturn(Mono.just(anime));
 
-        BDDMockito.when(animeRepository.saveAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
+        BDDMockito.when(animeRepository.insertAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
                 .thenReturn(Flux.just(anime, anime));
 
-        BDDMockito.when(animeRepository.delete(ArgumentMatchers.any(Anime.class)))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(1));
 
-        BDDMockito.when(animeRepository.save(AnimeCreator.createValidAnime()))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(Mono.just(1));
     }
 
-//    @Test
-//    public void BlockHoundWorks(){
-//        try {
-//            FutureTask<?> task = new FutureTask<>(() -> {
-//                Thread.sleep(0); //NOSONAR
-//                return "";
-//            });
-//            Schedulers.parallel().schedule(task);
-//
-//            task.get(10, TimeUnit.SECONDS);
-//            Assertions.fail("should fail");
-//
-//        } catch (Exception e) {
-//            Assertions.assertTrue(e.getCause() instanceof BlockingOperationError);
-//        }
-//
-//    }
+    /**
+     * Only records anything when BlockHound is installed, as with {@code -Pblockhound}, which
+     * also fails blocking calls where they happen.
+     */
+    @AfterEach
+    public void noBlockingCalls() {
+        double blockingCalls = meterRegistry.find("reactor.blocking.calls").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum();
+        Assertions.assertEquals(0, blockingCalls);
+    }
 
     @Test
     @DisplayName("listAllAnime returns a flux of anime")
@@ -190,6 +187,23 @@ public class AnimeControllerIT {
                 .isEqualTo(anime);
     }
 
+    @Test
+    @DisplayName("save returns bad request without writing when the body carries an id")
+    @WithUserDetails(ADMIN)
+    public void save_ReturnError_WhenIdIsSet() {
+        testClient.post()
+                .uri("/anime")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\":5,\"name\":\"x\"}")
+                .exchange()
+                .expectStatus()
+                .isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+
+        BDDMockito.verify(animeRepository, Mockito.never()).save(ArgumentMatchers.any(Anime.class));
+    }
+
     @Test
     @DisplayName("BatchSave creates animes when successful")
     @WithUserDetails(ADMIN)
@@ -231,13 +245,10 @@ public class AnimeControllerIT {
     public void batchSave_ReturnsError_WhenEmptyAnimes_Object() {
         Anime animeSaved = AnimeCreator.createAnimeToBeSaved();
 
-        BDDMockito.when(animeRepository.saveAll(ArgumentMatchers.anyIterable()))
-                .thenReturn(Flux.just(anime, anime.withName("")));
-
         testClient.post()
                 .uri("/anime/batch")
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(BodyInserters.fromValue(List.of(animeSaved, animeSaved)))
+                .body(BodyInserters.fromValue(List.of(animeSaved, animeSaved.withName(""))))
                 .exchange()
                 .expectStatus()
                 .isBadRequest()
@@ -261,8 +272,8 @@ public class AnimeControllerIT {
 //    @WithUserDetails(ADMIN)
     @WithMockUser(roles = "ADMIN") // Both are working
     public void delete_ReturnMono_Error_When_EmptyMonoReturns() {
-        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(0));
 
         testClient.delete()
                 .uri("/anime/{id}", 1)
@@ -293,8 +304,8 @@ public class AnimeControllerIT {
     @DisplayName("update returns a mono error when anime dose not exists")
     @WithUserDetails(ADMIN)
     public void update_ReturnMonoError_When_EmptyMonoReturn() {
-        BDDMockito.when(animeRepository.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(animeRepository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(Mono.just(0));
 
         testClient.put()
                 .uri("/anime")
@@ -0,0 +1,89 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.Anime;
+import com.example.util.AnimeCreator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AnimeCacheTest {
+
+    private final AnimeCache cache = new AnimeCache(new AnimeProperties());
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    @Test
+    @DisplayName("get shares one load between concurrent lookups of the same id")
+    public void get_SharesOneLoad_BetweenConcurrentLookups(){
+        AtomicInteger loads = new AtomicInteger();
+        Mono<Anime> lookup = cache.get(1, id -> Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return anime;
+        }));
+
+        StepVerifier.create(Mono.zip(lookup, lookup))
+                .expectSubscription()
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("get loads again after the id is invalidated")
+    public void get_LoadsAgain_AfterInvalidate(){
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, id -> Mono.fromCallable(() -> anime).doOnNext(a -> loads.incrementAndGet())).block();
+        cache.invalidate(1);
+        cache.get(1, id -> Mono.fromCallable(() -> anime).doOnNext(a -> loads.incrementAndGet())).block();
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("getAll loads only the uncached ids, in one call, and caches the misses")
+    public void getAll_LoadsUncachedIds_InOneCall(){
+        List<List<Long>> loads = new ArrayList<>();
+        cache.get(1, id -> Mono.just(anime)).block();
+
+        Map<Long, Anime> found = cache.getAll(List.of(1L, 2L, 3L), ids -> {
+            loads.add(ids);
+            return Flux.just(anime.withId(2L));
+        }).block();
+        cache.getAll(List.of(2L, 3L), ids -> {
+            loads.add(ids);
+            return Flux.empty();
+        }).block();
+
+        Assertions.assertEquals(Map.of(1L, anime, 2L, anime.withId(2L)), found);
+        Assertions.assertEquals(1, loads.size());
+        Assertions.assertEquals(Set.of(2L, 3L), Set.copyOf(loads.get(0)));
+    }
+
+    @Test
+    @DisplayName("bindTo exposes hit and miss counters")
+    public void bindTo_ExposesHitAndMissCounters(){
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(1, id -> Mono.just(anime)).block();
+        cache.get(1, id -> Mono.just(anime)).block();
+
+        Assertions.assertEquals(1, registry.get("cache.gets").tag("cache", "anime").tag("result", "hit")
+                .functionCounter().count());
+        Assertions.assertEquals(1, registry.get("cache.gets").tag("cache", "anime").tag("result", "miss")
+                .functionCounter().count());
+    }
+}
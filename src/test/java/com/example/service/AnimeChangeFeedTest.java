@@ -0,0 +1,96 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.Anime;
+import com.example.domain.AnimeChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+class AnimeChangeFeedTest {
+
+    private final AnimeProperties properties = new AnimeProperties();
+    private final AnimeChangeFeed feed = new AnimeChangeFeed(properties);
+
+    @Test
+    @DisplayName("subscribe emits the changes published after subscribing, in order")
+    public void subscribe_EmitsChangesPublishedAfterSubscribing(){
+        feed.created(List.of(new Anime(1, "Naruto")));
+
+        StepVerifier.create(feed.subscribe(null))
+                .then(() -> {
+                    feed.updated(List.of(new Anime(1, "Boruto")));
+                    feed.deleted(List.of(1L));
+                })
+                .expectNext(new AnimeChange(2, AnimeChange.Type.UPDATED, 1, "Boruto"))
+                .expectNext(new AnimeChange(3, AnimeChange.Type.DELETED, 1, null))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("subscribe with a resume token replays the changes made after it first")
+    public void subscribe_ReplaysMissedChanges_WhenResuming(){
+        feed.created(List.of(new Anime(1, "Naruto"), new Anime(2, "Bleach")));
+        String token = feed.resumeToken(new AnimeChange(1, AnimeChange.Type.CREATED, 1, "Naruto"));
+        feed.deleted(List.of(1L));
+
+        StepVerifier.create(feed.subscribe(token))
+                .expectNext(new AnimeChange(2, AnimeChange.Type.CREATED, 2, "Bleach"))
+                .expectNext(new AnimeChange(3, AnimeChange.Type.DELETED, 1, null))
+                .then(() -> feed.deleted(List.of(2L)))
+                .expectNext(new AnimeChange(4, AnimeChange.Type.DELETED, 2, null))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("subscribe returns 410 Gone when the missed changes left the history")
+    public void subscribe_ReturnsGone_WhenResumeTokenExpired(){
+        properties.getChanges().setHistorySize(2);
+        AnimeChangeFeed feed = new AnimeChangeFeed(properties);
+        feed.deleted(List.of(1L, 2L, 3L, 4L));
+
+        StepVerifier.create(feed.subscribe(feed.resumeToken(new AnimeChange(1, AnimeChange.Type.DELETED, 1, null))))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException status
+                        && status.getStatusCode() == HttpStatus.GONE)
+                .verify();
+
+        StepVerifier.create(feed.subscribe("earlier-process-1"))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException status
+                        && status.getStatusCode() == HttpStatus.GONE)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("subscribe ends the stream of a subscriber that falls too far behind after its buffer")
+    public void subscribe_Disconnects_SlowSubscriber(){
+        properties.getChanges().setBufferSize(1);
+        AnimeChangeFeed feed = new AnimeChangeFeed(properties);
+
+        StepVerifier.create(feed.subscribe(null), 0)
+                .then(() -> feed.deleted(List.of(1L, 2L, 3L)))
+                .thenRequest(10)
+                .expectNext(new AnimeChange(1, AnimeChange.Type.DELETED, 1, null))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("subscribe drops the oldest changes of a slow subscriber when configured to")
+    public void subscribe_DropsOldest_ForSlowSubscriber(){
+        properties.getChanges().setBufferSize(1);
+        properties.getChanges().setSlowConsumer(AnimeProperties.Changes.SlowConsumer.DROP_OLDEST);
+        AnimeChangeFeed feed = new AnimeChangeFeed(properties);
+
+        StepVerifier.create(feed.subscribe(null), 0)
+                .then(() -> feed.deleted(List.of(1L, 2L, 3L)))
+                .thenRequest(10)
+                .expectNext(new AnimeChange(3, AnimeChange.Type.DELETED, 3, null))
+                .thenCancel()
+                .verify();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.service;
+
+import com.example.domain.Anime;
+import com.example.domain.AnimeSuggestion;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+class AnimeNameIndexTest {
+
+    private final AnimeNameIndex index = new AnimeNameIndex(Schedulers.immediate());
+
+    @BeforeEach
+    public void setUp(){
+        index.rebuild(Flux.just(new Anime(1, "Naruto"), new Anime(2, "Naruto Shippuden"), new Anime(3, "Bleach"),
+                new Anime(4, " naruto ")))
+                .block();
+    }
+
+    @Test
+    @DisplayName("suggest returns names starting with the prefix, ignoring case, in name order")
+    public void suggest_ReturnsPrefixMatches_InNameOrder(){
+        Assertions.assertEquals(List.of(new AnimeSuggestion(1, "Naruto"), new AnimeSuggestion(4, " naruto "), new AnimeSuggestion(2, "Naruto Shippuden")),
+                index.suggest(" NAR", 10));
+        Assertions.assertEquals(List.of(new AnimeSuggestion(1, "Naruto")), index.suggest("naru", 1));
+        Assertions.assertEquals(List.of(), index.suggest(" ", 10));
+    }
+
+    @Test
+    @DisplayName("put and remove are visible on top of the loaded names")
+    public void putAndRemove_AreVisible_OnTopOfLoadedNames(){
+        index.put(new Anime(3, "Nana"));
+        index.put(new Anime(5, "Naruto Next Generations"));
+        index.remove(1);
+
+        Assertions.assertEquals(List.of(new AnimeSuggestion(3, "Nana"), new AnimeSuggestion(4, " naruto "),
+                        new AnimeSuggestion(5, "Naruto Next Generations"), new AnimeSuggestion(2, "Naruto Shippuden")),
+                index.suggest("na", 10));
+        Assertions.assertEquals(List.of(), index.suggest("bl", 10));
+        Assertions.assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("suggest keeps name order after the changes are merged into the base")
+    public void suggest_KeepsOrder_AfterCompaction(){
+        List<Anime> added = LongStream.rangeClosed(10, 10 + AnimeNameIndex.compactionThreshold(0))
+                .mapToObj(id -> new Anime(id, "Show " + id))
+                .toList();
+
+        index.putAll(added);
+        index.remove(2);
+
+        Assertions.assertEquals(3 + added.size(), index.size());
+        Assertions.assertEquals(List.of(new AnimeSuggestion(1, "Naruto"), new AnimeSuggestion(4, " naruto ")), index.suggest("naruto", 10));
+        Assertions.assertEquals(List.of(new AnimeSuggestion(10, "Show 10"), new AnimeSuggestion(100, "Show 100")), index.suggest("show 10", 2));
+    }
+
+    @Test
+    @DisplayName("rebuild keeps writes made while the names were loading")
+    public void rebuild_KeepsWrites_MadeWhileLoading(){
+        Flux<Anime> slowLoad = Flux.defer(() -> {
+            index.put(new Anime(9, "Naruto Movie"));
+            return Flux.just(new Anime(1, "Naruto"));
+        });
+
+        StepVerifier.create(index.rebuild(slowLoad))
+                .expectSubscription()
+                .verifyComplete();
+
+        Assertions.assertEquals(List.of(new AnimeSuggestion(1, "Naruto"), new AnimeSuggestion(9, "Naruto Movie")), index.suggest("naruto", 10));
+    }
+}
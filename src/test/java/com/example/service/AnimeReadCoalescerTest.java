@@ -0,0 +1,95 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AnimeReadCoalescerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AnimeReadCoalescer coalescer = new AnimeReadCoalescer(registry);
+
+    @Test
+    @DisplayName("coalesce shares one query between concurrent callers of the same key and counts the joiners")
+    public void coalesce_SharesOneQuery_BetweenConcurrentCallers(){
+        AtomicInteger queries = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+
+        StepVerifier.create(Mono.zip(
+                        coalescer.coalesce("search", "naru", () -> query(queries, result)),
+                        coalescer.coalesce("search", "naru", () -> query(queries, result)),
+                        coalescer.coalesce("search", "other", () -> query(queries, result))))
+                .then(() -> {
+                    Assertions.assertEquals(2.0, registry.get(AnimeReadCoalescer.IN_FLIGHT_METRIC).gauge().value());
+                    result.tryEmitValue("naruto");
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        Assertions.assertEquals(2, queries.get());
+        Assertions.assertEquals(1.0, registry.get(AnimeReadCoalescer.COALESCED_METRIC).tag("method", "search").counter().count());
+        Assertions.assertEquals(0.0, registry.get(AnimeReadCoalescer.IN_FLIGHT_METRIC).gauge().value());
+    }
+
+    @Test
+    @DisplayName("coalesce runs a new query once the previous one completed or failed")
+    public void coalesce_RunsNewQuery_AfterPreviousTerminated(){
+        AtomicInteger queries = new AtomicInteger();
+
+        StepVerifier.create(coalescer.coalesce("getPage", 1, () -> Mono.error(new IllegalStateException("down"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+        coalescer.coalesce("getPage", 1, () -> Mono.fromCallable(queries::incrementAndGet)).block();
+        coalescer.coalesce("getPage", 1, () -> Mono.fromCallable(queries::incrementAndGet)).block();
+
+        Assertions.assertEquals(2, queries.get());
+    }
+
+    @Test
+    @DisplayName("coalesce keeps the query running for the other callers when one cancels")
+    public void coalesce_KeepsQuery_WhenOneCallerCancels(){
+        Sinks.One<String> result = Sinks.one();
+        AtomicInteger queries = new AtomicInteger();
+
+        Disposable cancelled = coalescer.coalesce("search", "naru", () -> query(queries, result)).subscribe();
+        Mono<String> remaining = coalescer.coalesce("search", "naru", () -> query(queries, result));
+
+        StepVerifier.create(remaining)
+                .then(() -> {
+                    cancelled.dispose();
+                    result.tryEmitValue("naruto");
+                })
+                .expectNext("naruto")
+                .verifyComplete();
+
+        Assertions.assertEquals(1, queries.get());
+    }
+
+    @Test
+    @DisplayName("forgetAll makes the next caller start its own query while the old one is still running")
+    public void forgetAll_StartsNewQuery_ForNextCaller(){
+        Sinks.One<String> stale = Sinks.one();
+        Mono<String> before = coalescer.coalesce("search", "naru", stale::asMono).cache();
+        before.subscribe();
+
+        coalescer.forgetAll();
+        String after = coalescer.coalesce("search", "naru", () -> Mono.just("fresh")).block();
+        stale.tryEmitValue("stale");
+
+        Assertions.assertEquals("fresh", after);
+        Assertions.assertEquals("stale", before.block());
+    }
+
+    private static Mono<String> query(AtomicInteger queries, Sinks.One<String> result){
+        queries.incrementAndGet();
+        return result.asMono();
+    }
+}
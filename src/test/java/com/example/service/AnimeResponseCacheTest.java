@@ -0,0 +1,117 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.configuration.CodecConfiguration;
+import com.example.domain.Anime;
+import com.example.domain.AnimePage;
+import com.example.util.AnimeCreator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AnimeResponseCacheTest {
+
+    private final AnimeResponseCache cache = new AnimeResponseCache(new AnimeProperties(), ServerCodecConfigurer.create());
+
+    private final Anime anime = AnimeCreator.createValidAnime();
+
+    @Test
+    @DisplayName("anime encodes the body once per media type and serves the same read-only bytes afterwards")
+    public void anime_EncodesOncePerMediaType() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        AnimeResponseCache.Encoded<Anime> json = cache.anime(1, MediaType.APPLICATION_JSON, id -> load(loads)).block();
+        AnimeResponseCache.Encoded<Anime> again = cache.anime(1, MediaType.APPLICATION_JSON, id -> load(loads)).block();
+        AnimeResponseCache.Encoded<Anime> smile = cache.anime(1, CodecConfiguration.APPLICATION_SMILE, id -> load(loads)).block();
+
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertSame(json, again);
+        Assertions.assertTrue(json.body().isReadOnly());
+        Assertions.assertEquals(new ObjectMapper().writeValueAsString(anime), text(json.body()));
+        Assertions.assertEquals(anime, new ObjectMapper(new SmileFactory()).readValue(bytes(smile.body()), Anime.class));
+    }
+
+    @Test
+    @DisplayName("invalidate drops the bodies of the ids in every media type, and every page")
+    public void invalidate_DropsAnimeAndPages(){
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger pageLoads = new AtomicInteger();
+        cache.anime(1, MediaType.APPLICATION_JSON, id -> load(loads)).block();
+        cache.anime(1, CodecConfiguration.APPLICATION_SMILE, id -> load(loads)).block();
+        cache.page("v1", null, null, MediaType.APPLICATION_JSON, () -> loadPage(pageLoads)).block();
+
+        cache.invalidate(List.of(1L));
+        cache.anime(1, MediaType.APPLICATION_JSON, id -> load(loads)).block();
+        cache.anime(1, CodecConfiguration.APPLICATION_SMILE, id -> load(loads)).block();
+        cache.page("v1", null, null, MediaType.APPLICATION_JSON, () -> loadPage(pageLoads)).block();
+
+        Assertions.assertEquals(4, loads.get());
+        Assertions.assertEquals(2, pageLoads.get());
+    }
+
+    @Test
+    @DisplayName("anime does not cache a body whose load was still running when the id was invalidated")
+    public void anime_DiscardsLoad_InvalidatedWhileRunning(){
+        Sinks.One<Anime> stale = Sinks.one();
+        Mono<AnimeResponseCache.Encoded<Anime>> first = cache.anime(1, MediaType.APPLICATION_JSON, id -> stale.asMono())
+                .cache();
+        first.subscribe();
+
+        cache.invalidate(List.of(1L));
+        stale.tryEmitValue(anime.withName("Old name"));
+        AnimeResponseCache.Encoded<Anime> next = cache.anime(1, MediaType.APPLICATION_JSON, id -> Mono.just(anime)).block();
+
+        Assertions.assertEquals("Old name", first.block().value().getName());
+        Assertions.assertEquals(anime, next.value());
+    }
+
+    @Test
+    @DisplayName("page keeps pages of different catalog versions apart")
+    public void page_KeyedByCatalogVersion(){
+        AtomicInteger pageLoads = new AtomicInteger();
+
+        AnimeResponseCache.Encoded<AnimePage> v1 = cache.page("v1", null, 1, MediaType.APPLICATION_JSON,
+                () -> loadPage(pageLoads)).block();
+        cache.page("v1", null, 1, MediaType.APPLICATION_JSON, () -> loadPage(pageLoads)).block();
+        cache.page("v2", null, 1, MediaType.APPLICATION_JSON, () -> loadPage(pageLoads)).block();
+
+        Assertions.assertEquals(2, pageLoads.get());
+        Assertions.assertEquals("[" + text(cache.anime(1, MediaType.APPLICATION_JSON, id -> Mono.just(anime)).block().body())
+                + "]", text(v1.body()));
+    }
+
+    private Mono<Anime> load(AtomicInteger loads){
+        return Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return anime;
+        });
+    }
+
+    private Mono<AnimePage> loadPage(AtomicInteger loads){
+        return Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return new AnimePage(List.of(anime), null);
+        });
+    }
+
+    private static byte[] bytes(ByteBuffer body){
+        byte[] bytes = new byte[body.remaining()];
+        body.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static String text(ByteBuffer body){
+        return new String(bytes(body), StandardCharsets.UTF_8);
+    }
+}
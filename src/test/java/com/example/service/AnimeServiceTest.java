@@ -1,23 +1,45 @@
 package com.example.service;
 
+import com.example.configuration.AnimeProperties;
 import com.example.domain.Anime;
+import com.example.domain.AnimeChange;
+import com.example.domain.AnimeLookup;
+import com.example.domain.BatchResult;
+import com.example.domain.AnimePage;
+import com.example.domain.AnimeSuggestion;
+import com.example.domain.IngestProgress;
+import com.example.exception.StacklessResponseStatusException;
 import com.example.repository.AnimeRepository;
 import com.example.util.AnimeCreator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.blockhound.BlockHound;
 import reactor.blockhound.BlockingOperationError;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
@@ -31,6 +53,33 @@ class AnimeServiceTest {
     @Mock
     private AnimeRepository repository;
 
+    @Spy
+    private AnimeProperties properties = new AnimeProperties();
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Spy
+    private AnimeCache cache = new AnimeCache(new AnimeProperties());
+
+    @Spy
+    private AnimeNameIndex nameIndex = new AnimeNameIndex(Schedulers.immediate());
+
+    @Spy
+    private AnimeChangeFeed changeFeed = new AnimeChangeFeed(new AnimeProperties());
+
+    @Spy
+    private AnimeResponseCache responseCache = new AnimeResponseCache(new AnimeProperties(), ServerCodecConfigurer.create());
+
+    @Spy
+    private AnimeReadCoalescer coalescer = new AnimeReadCoalescer(new SimpleMeterRegistry());
+
+    @Spy
+    private RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(new AnimeProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private final Anime anime = AnimeCreator.createValidAnime();
 
     @BeforeAll
@@ -40,23 +89,35 @@ class AnimeServiceTest {
 
     @BeforeEach
     public void setUpMock(){
-        BDDMockito.when(repository.findAll())
-                .thenReturn(Flux.just(anime));
-
         BDDMockito.when(repository.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Mono.just(anime));
 
+        BDDMockito.when(repository.findPage(ArgumentMatchers.anyLong(), ArgumentMatchers.anyInt()))
+                .thenReturn(Flux.just(anime));
+
+        BDDMockito.when(repository.streamAll(ArgumentMatchers.anyInt()))
+                .thenReturn(Flux.just(anime, anime));
+
         BDDMockito.when(repository.save(AnimeCreator.createAnimeToBeSaved()))
                 .thenReturn(Mono.just(anime));
 
-        BDDMockito.when(repository.saveAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
+        BDDMockito.when(repository.insertAll(List.of(AnimeCreator.createAnimeToBeSaved(), AnimeCreator.createAnimeToBeSaved())))
                 .thenReturn(Flux.just(anime, anime));
 
-        BDDMockito.when(repository.delete(ArgumentMatchers.any(Anime.class)))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(repository.insertAll(List.of(AnimeCreator.createAnimeToBeSaved())))
+                .thenReturn(Flux.just(anime));
 
-        BDDMockito.when(repository.save(AnimeCreator.createValidAnime()))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(transactionalOperator.transactional(ArgumentMatchers.<Mono<Long>>any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BDDMockito.when(transactionalOperator.transactional(ArgumentMatchers.<Flux<Anime>>any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BDDMockito.when(repository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(1));
+
+        BDDMockito.when(repository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(Mono.just(1));
     }
 
     @Test
@@ -78,12 +139,131 @@ class AnimeServiceTest {
     }
 
     @Test
-    @DisplayName("getAllAnimes returns a flux of anime")
-    public void getAllAnimes_ReturnFlux_OfAnime_WhenSuccessful(){
-        StepVerifier.create(service.getAllAnimes())
+    @DisplayName("streamAll streams anime using the configured fetch size")
+    public void streamAll_ReturnFlux_OfAnime_WhenSuccessful(){
+        StepVerifier.create(service.streamAll(), 1)
                 .expectSubscription()
                 .expectNext(anime)
+                .thenRequest(1)
+                .expectNext(anime)
                 .verifyComplete();
+
+        BDDMockito.verify(repository).streamAll(properties.getStream().getFetchSize());
+    }
+
+    @Test
+    @DisplayName("getPage returns the last page without a next cursor")
+    public void getPage_ReturnsLastPage_WithoutNextCursor(){
+        StepVerifier.create(service.getPage(null, null))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(anime), null))
+                .verifyComplete();
+
+        BDDMockito.verify(repository).findPage(0, properties.getPage().getDefaultLimit());
+    }
+
+    @Test
+    @DisplayName("getPage returns a next cursor when the page is full")
+    public void getPage_ReturnsNextCursor_WhenPageIsFull(){
+        StepVerifier.create(service.getPage(0L, 1))
+                .expectSubscription()
+                .expectNext(new AnimePage(List.of(anime), anime.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("getPage caps the limit at the configured maximum")
+    public void getPage_CapsLimit_AtMaxLimit(){
+        StepVerifier.create(service.getPage(5L, Integer.MAX_VALUE))
+                .expectSubscription()
+                .expectNextCount(1)
+                .verifyComplete();
+
+        BDDMockito.verify(repository).findPage(5, properties.getPage().getMaxLimit());
+    }
+
+    @Test
+    @DisplayName("catalogVersion changes when a write commits and once the version ttl passes")
+    public void catalogVersion_Changes_OnWriteAndAfterTtl(){
+        properties.getPage().setVersionTtl(Duration.ofHours(1));
+        String version = service.catalogVersion();
+        Assertions.assertEquals(version, service.catalogVersion());
+
+        StepVerifier.create(service.save(AnimeCreator.createAnimeToBeSaved()))
+                .expectNextCount(1)
+                .verifyComplete();
+        String written = service.catalogVersion();
+        Assertions.assertNotEquals(version, written);
+
+        properties.getPage().setVersionTtl(Duration.ofMillis(1));
+        String early = service.catalogVersion();
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() == start) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertNotEquals(early, service.catalogVersion());
+    }
+
+    @Test
+    @DisplayName("getPage returns a Mono error when the limit is not positive")
+    public void getPage_ReturnMono_Error_When_LimitIsNotPositive(){
+        StepVerifier.create(service.getPage(null, 0))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("search trims the query and uses the default limit")
+    public void search_TrimsQuery_AndUsesDefaultLimit(){
+        BDDMockito.when(repository.search(ArgumentMatchers.anyString(), ArgumentMatchers.anyInt()))
+                .thenReturn(Flux.just(anime));
+
+        StepVerifier.create(service.search("  naru ", null))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(repository).search("naru", properties.getSearch().getDefaultLimit());
+    }
+
+    @Test
+    @DisplayName("search shares one query between concurrent identical searches")
+    public void search_SharesOneQuery_BetweenConcurrentSearches(){
+        Sinks.One<Anime> result = Sinks.one();
+        BDDMockito.when(repository.search(ArgumentMatchers.anyString(), ArgumentMatchers.anyInt()))
+                .thenReturn(result.asMono().flux());
+
+        StepVerifier.create(Flux.merge(service.search("naru", null), service.search(" naru ", null)))
+                .then(() -> result.tryEmitValue(anime))
+                .expectNext(anime, anime)
+                .verifyComplete();
+
+        BDDMockito.verify(repository, Mockito.times(1)).search("naru", properties.getSearch().getDefaultLimit());
+    }
+
+    @Test
+    @DisplayName("search caps the limit at the configured maximum")
+    public void search_CapsLimit_AtMaxLimit(){
+        BDDMockito.when(repository.search(ArgumentMatchers.anyString(), ArgumentMatchers.anyInt()))
+                .thenReturn(Flux.empty());
+
+        StepVerifier.create(service.search("naru", Integer.MAX_VALUE))
+                .expectSubscription()
+                .verifyComplete();
+
+        BDDMockito.verify(repository).search("naru", properties.getSearch().getMaxLimit());
+    }
+
+    @Test
+    @DisplayName("search returns a Flux error when the query is shorter than a trigram")
+    public void search_ReturnFlux_Error_When_QueryIsTooShort(){
+        StepVerifier.create(service.search(" na ", null))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).search(ArgumentMatchers.anyString(), ArgumentMatchers.anyInt());
     }
 
     @Test
@@ -107,6 +287,268 @@ class AnimeServiceTest {
                 .verify();
     }
 
+    @Test
+    @DisplayName("findById is timed per method and outcome")
+    public void findById_RecordsTimer_TaggedWithMethod(){
+        StepVerifier.create(service.findById(1))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        Assertions.assertEquals(1, meterRegistry.get(AnimeService.METRIC_NAME + ".flow.duration")
+                .tag("method", "findById")
+                .tag("status", "completed")
+                .timer().count());
+    }
+
+    @Test
+    @DisplayName("findById serves repeated lookups from the cache")
+    public void findById_ServesRepeatedLookups_FromCache(){
+        StepVerifier.create(service.findById(1).then(service.findById(1)))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(repository, Mockito.times(1)).findById(1);
+    }
+
+    @Test
+    @DisplayName("findById caches a miss and keeps returning not found")
+    public void findById_CachesMiss_AndReturnsNotFound(){
+        BDDMockito.when(repository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(service.findById(1).onErrorResume(ResponseStatusException.class, e -> service.findById(1)))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.times(1)).findById(1);
+    }
+
+    @Test
+    @DisplayName("findById returns a new not found error without a stack trace on every miss")
+    public void findById_ReturnsStacklessNotFound_PerMiss(){
+        BDDMockito.when(repository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(Flux.concat(service.findById(1).materialize(), service.findById(1).materialize())
+                        .map(Signal::getThrowable)
+                        .collectList())
+                .expectSubscription()
+                .assertNext(errors -> {
+                    Assertions.assertInstanceOf(StacklessResponseStatusException.class, errors.get(0));
+                    Assertions.assertEquals(0, errors.get(0).getStackTrace().length);
+                    Assertions.assertNotSame(errors.get(0), errors.get(1));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findByIds returns anime in request order and reports the missing ids")
+    public void findByIds_ReturnsRequestOrder_AndMissingIds(){
+        Anime second = anime.withId(2L);
+        BDDMockito.when(repository.findByIds(ArgumentMatchers.anyList()))
+                .thenReturn(Flux.just(anime, second));
+
+        StepVerifier.create(service.findByIds(List.of(2L, 3L, 1L, 2L)))
+                .expectSubscription()
+                .expectNext(new AnimeLookup(List.of(second, anime), List.of(3L)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("findByIds returns a Mono error when too many ids are requested")
+    public void findByIds_ReturnMono_Error_When_TooManyIds(){
+        properties.getLookup().setMaxIds(1);
+
+        StepVerifier.create(service.findByIds(List.of(1L, 2L)))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).findByIds(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("suggest returns names from the index capped at the configured limit")
+    public void suggest_ReturnsIndexedNames_CappedAtMaxLimit(){
+        properties.getSuggest().setMaxLimit(1);
+        nameIndex.putAll(List.of(anime, anime.withId(2L)));
+
+        StepVerifier.create(service.suggest("MEH", 10))
+                .expectSubscription()
+                .expectNext(List.of(new AnimeSuggestion(anime.getId(), anime.getName())))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("save and delete keep the autocomplete index in step")
+    public void saveAndDelete_UpdateNameIndex(){
+        StepVerifier.create(service.save(AnimeCreator.createAnimeToBeSaved()))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+        Assertions.assertEquals(List.of(new AnimeSuggestion(anime.getId(), anime.getName())), nameIndex.suggest("mehedi", 10));
+
+        StepVerifier.create(service.delete(1))
+                .expectSubscription()
+                .verifyComplete();
+        Assertions.assertEquals(List.of(), nameIndex.suggest("mehedi", 10));
+    }
+
+    @Test
+    @DisplayName("save, update and delete publish a change once they succeed")
+    public void writes_PublishChanges(){
+        BDDMockito.when(repository.updateName(2L, "renamed"))
+                .thenReturn(Mono.just(0));
+
+        StepVerifier.create(service.changes(null))
+                .then(() -> service.save(AnimeCreator.createAnimeToBeSaved())
+                        .then(service.update(anime.withId(2L).withName("renamed")).onErrorResume(error -> Mono.empty()))
+                        .then(service.delete(1))
+                        .subscribe())
+                .expectNext(new AnimeChange(1, AnimeChange.Type.CREATED, 1, anime.getName()))
+                .expectNext(new AnimeChange(2, AnimeChange.Type.DELETED, 1, null))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("update invalidates the cached anime")
+    public void update_InvalidatesCachedAnime(){
+        StepVerifier.create(service.findById(1)
+                        .then(service.update(AnimeCreator.createValidAnime()))
+                        .then(service.findById(1)))
+                .expectSubscription()
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(repository, Mockito.times(2)).findById(1);
+    }
+
+    @Test
+    @DisplayName("update drops the encoded responses and the reads still in flight")
+    public void update_InvalidatesEncodedResponses(){
+        StepVerifier.create(service.findEncodedById(1, MediaType.APPLICATION_JSON)
+                        .then(service.update(AnimeCreator.createValidAnime()))
+                        .then(service.findEncodedById(1, MediaType.APPLICATION_JSON)))
+                .expectSubscription()
+                .assertNext(encoded -> Assertions.assertEquals(anime, encoded.value()))
+                .verifyComplete();
+
+        BDDMockito.verify(responseCache).invalidate(List.of(anime.getId()));
+        BDDMockito.verify(coalescer).forgetAll();
+        BDDMockito.verify(repository, Mockito.times(2)).findById(1);
+    }
+
+    @Test
+    @DisplayName("findEncodedById returns a Mono error when the anime doesn't exist")
+    public void findEncodedById_ReturnMono_Error_When_EmptyMonoReturns(){
+        BDDMockito.when(repository.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(service.findEncodedById(1, MediaType.APPLICATION_JSON))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("updateAll renames existing anime and reports the missing ids")
+    public void updateAll_ReportsMissingIds_WhenSomeDoNotExist(){
+        BDDMockito.when(repository.updateNames(ArgumentMatchers.anyList()))
+                .thenReturn(Flux.just(1L));
+
+        StepVerifier.create(service.findById(1)
+                        .then(service.updateAll(List.of(anime.withName("renamed"), anime.withId(2L))))
+                        .flatMap(result -> service.findById(1).thenReturn(result)))
+                .expectSubscription()
+                .expectNext(new BatchResult(List.of(1L), List.of(2L)))
+                .verifyComplete();
+
+        BDDMockito.verify(repository).updateNames(List.of(anime.withId(1L).withName("renamed"), anime.withId(2L)));
+        BDDMockito.verify(repository, Mockito.times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("updateAll returns error when an anime has an empty name")
+    public void updateAll_Return_Error_When_EmptyObjectInList(){
+        StepVerifier.create(service.updateAll(List.of(anime, anime.withId(2L).withName(""))))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).updateNames(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("findByIds returns a Mono error when an id is null")
+    public void findByIds_ReturnMono_Error_When_IdIsNull(){
+        StepVerifier.create(service.findByIds(Arrays.asList(1L, null, 2L)))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException ex
+                        && ex.getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).findByIds(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("deleteAll returns a Mono error without deleting when too many ids are sent")
+    public void deleteAll_ReturnMono_Error_When_TooManyIds(){
+        properties.getLookup().setMaxIds(1);
+
+        StepVerifier.create(service.deleteAll(List.of(1L, 2L)))
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).deleteByIds(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("deleteAll deletes existing anime once and reports the missing ids")
+    public void deleteAll_ReportsMissingIds_WhenSomeDoNotExist(){
+        BDDMockito.when(repository.deleteByIds(List.of(3L, 1L, 2L)))
+                .thenReturn(Flux.just(1L, 3L));
+
+        StepVerifier.create(service.deleteAll(List.of(3L, 1L, 3L, 2L)))
+                .expectSubscription()
+                .expectNext(new BatchResult(List.of(3L, 1L), List.of(2L)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("deleteAll is refused before its transaction starts when the database is busy")
+    public void deleteAll_ReturnsServiceUnavailable_BeforeTransaction_WhenBusy(){
+        PublisherProbe<Long> delete = PublisherProbe.of(Flux.just(1L));
+        BDDMockito.when(repository.deleteByIds(List.of(1L)))
+                .thenReturn(delete.flux());
+        occupyLimiter();
+
+        StepVerifier.create(service.deleteAll(List.of(1L)))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException ex
+                        && ex.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+
+        delete.assertWasNotSubscribed();
+    }
+
+    @Test
+    @DisplayName("deleteAll evicts anime read back into the cache before the delete committed")
+    public void deleteAll_EvictsCache_ReloadedBeforeCommit(){
+        BDDMockito.when(repository.deleteByIds(List.of(1L)))
+                .thenReturn(Flux.just(1L).concatWith(Mono.defer(() -> service.findById(1L).then(Mono.empty()))));
+
+        StepVerifier.create(service.deleteAll(List.of(1L)))
+                .expectNext(new BatchResult(List.of(1L), List.of()))
+                .verifyComplete();
+        StepVerifier.create(service.findById(1L))
+                .expectNext(anime)
+                .verifyComplete();
+
+        BDDMockito.verify(repository, Mockito.times(2)).findById(1L);
+    }
+
     @Test
     @DisplayName("save creates an anime when successful")
     public void save_Creates_AnAnime_WhenSuccessful(){
@@ -118,6 +560,20 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("save returns a Mono error without writing when the anime has an id or version")
+    public void save_ReturnMono_Error_When_IdOrVersionIsSet(){
+        StepVerifier.create(service.save(AnimeCreator.createValidAnime()))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException ex
+                        && ex.getStatusCode() == HttpStatus.BAD_REQUEST)
+                .verify();
+        StepVerifier.create(service.save(AnimeCreator.createAnimeToBeSaved().withVersion(3)))
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).save(ArgumentMatchers.any(Anime.class));
+    }
+
     @Test
     @DisplayName("saveAll creates a list of anime when successful")
     public void saveAll_Creates_Anime_WhenSuccessful(){
@@ -129,17 +585,128 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("saveAll writes the batch in chunks of the configured size")
+    public void saveAll_WritesChunks_OfConfiguredSize(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        properties.getBatch().setChunkSize(1);
+
+        StepVerifier.create(service.saveAllAnime(List.of(animeToBeSaved, animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(anime, anime, anime)
+                .verifyComplete();
+
+        BDDMockito.verify(repository, Mockito.times(3)).insertAll(List.of(animeToBeSaved));
+    }
+
     @Test
     @DisplayName("saveAll return error when empty object in the list")
     public void saveAll_Return_Error_When_EmptyObjectInList(){
         Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
 
-        BDDMockito.when(repository.saveAll(ArgumentMatchers.anyIterable()))
-                .thenReturn(Flux.just(anime, anime.withName("")));
-
         StepVerifier.create(service.saveAllAnime(List.of(animeToBeSaved, animeToBeSaved.withName(""))))
                 .expectSubscription()
-                .expectNext(anime)
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("ingest commits one transaction per chunk and reports progress")
+    public void ingest_CommitsChunks_AndReportsProgress(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        properties.getIngest().setChunkSize(2);
+
+        StepVerifier.withVirtualTime(() -> service.ingest(Flux.just(animeToBeSaved, animeToBeSaved, animeToBeSaved)))
+                .expectSubscription()
+                .expectNext(new IngestProgress(1, 2, 2))
+                .expectNext(new IngestProgress(2, 1, 3))
+                .verifyComplete();
+
+        BDDMockito.verify(transactionalOperator, Mockito.times(2)).transactional(ArgumentMatchers.<Mono<Long>>any());
+        BDDMockito.verify(limiter, Mockito.times(2)).admit(ArgumentMatchers.<Mono<Long>>any());
+        BDDMockito.verify(limiter, Mockito.never()).limit(ArgumentMatchers.<Flux<Anime>>any());
+    }
+
+    @Test
+    @DisplayName("ingest keeps up with a slow writer without overflowing")
+    public void ingest_HoldsBackUpload_WhileChunkIsWritten(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        properties.getIngest().setChunkSize(2);
+        properties.getIngest().setMaxWait(Duration.ofMillis(1));
+
+        BDDMockito.when(repository.insertAll(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> Flux.fromIterable(invocation.<List<Anime>>getArgument(0))
+                        .delayElements(Duration.ofMillis(10)));
+
+        StepVerifier.withVirtualTime(() -> service.ingest(Flux.range(0, 10)
+                        .map(i -> animeToBeSaved)
+                        .delayElements(Duration.ofMillis(2))))
+                .expectSubscription()
+                .thenAwait(Duration.ofSeconds(1))
+                .thenConsumeWhile(progress -> progress.totalRows() < 10)
+                .expectNextMatches(progress -> progress.totalRows() == 10)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ingest holds no limiter slot while the upload stalls between chunks")
+    public void ingest_HoldsNoSlot_WhileUploadStalls(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        properties.getIngest().setChunkSize(2);
+
+        StepVerifier.withVirtualTime(() -> service.ingest(Flux.just(animeToBeSaved, animeToBeSaved)
+                        .concatWith(Mono.just(animeToBeSaved).delaySubscription(Duration.ofMinutes(10)))))
+                .expectSubscription()
+                .expectNext(new IngestProgress(1, 2, 2))
+                .then(() -> Assertions.assertEquals(0, limiter.getInFlight()))
+                .thenAwait(Duration.ofMinutes(11))
+                .expectNext(new IngestProgress(2, 1, 3))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ingest tries a chunk again while the database is busy and goes on once a slot frees up")
+    public void ingest_RetriesChunk_WhileDatabaseIsBusy(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        List<Sinks.Empty<Void>> busy = occupyLimiter();
+
+        StepVerifier.withVirtualTime(() -> service.ingest(Flux.just(animeToBeSaved)))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(150))
+                .then(() -> busy.forEach(Sinks.Empty::tryEmitEmpty))
+                .thenAwait(Duration.ofSeconds(10))
+                .expectNext(new IngestProgress(1, 1, 1))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("ingest ends with 503 when the database stays busy past the retries")
+    public void ingest_ReturnsServiceUnavailable_WhenBusyPastRetries(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        properties.getIngest().setBusyRetries(2);
+        occupyLimiter();
+
+        StepVerifier.withVirtualTime(() -> service.ingest(Flux.just(animeToBeSaved)))
+                .expectSubscription()
+                .thenAwait(Duration.ofMinutes(1))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException ex
+                        && ex.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+
+        BDDMockito.verify(repository, Mockito.never()).insertAll(ArgumentMatchers.anyList());
+    }
+
+    @Test
+    @DisplayName("ingest stops with an error when a chunk has an empty name")
+    public void ingest_ReturnError_When_EmptyObjectInChunk(){
+        Anime animeToBeSaved = AnimeCreator.createAnimeToBeSaved();
+        properties.getIngest().setChunkSize(2);
+
+        StepVerifier.withVirtualTime(() -> service.ingest(Flux.just(animeToBeSaved, animeToBeSaved, animeToBeSaved.withName(""))))
+                .expectSubscription()
+                .expectNext(new IngestProgress(1, 2, 2))
                 .expectError(ResponseStatusException.class)
                 .verify();
     }
@@ -155,8 +722,8 @@ class AnimeServiceTest {
     @Test
     @DisplayName("delete returns a mono error when anime doesn't exists")
     public void delete_ReturnMono_Error_When_EmptyMonoReturns(){
-        BDDMockito.when(repository.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(repository.deleteAnimeById(ArgumentMatchers.anyLong()))
+                .thenReturn(Mono.just(0));
 
         StepVerifier.create(service.delete(1))
                 .expectSubscription()
@@ -172,15 +739,51 @@ class AnimeServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("update with a version renames the anime and returns its new version")
+    public void updateWithVersion_ReturnsNewVersion_WhenVersionMatches(){
+        BDDMockito.when(repository.updateName(1L, anime.getName(), 3L))
+                .thenReturn(Mono.just(4L));
+
+        StepVerifier.create(service.update(anime, 3))
+                .expectSubscription()
+                .expectNext(4L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("update with a version returns 412 when the anime was changed or deleted")
+    public void updateWithVersion_ReturnPreconditionFailed_WhenVersionIsStale(){
+        BDDMockito.when(repository.updateName(1L, anime.getName(), 3L))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(service.update(anime, 3))
+                .expectSubscription()
+                .expectErrorMatches(error -> error instanceof ResponseStatusException status
+                        && status.getStatusCode() == HttpStatus.PRECONDITION_FAILED)
+                .verify();
+    }
+
     @Test
     @DisplayName("update returns a mono error when anime dose not exists")
     public void update_ReturnMonoError_When_EmptyMonoReturn(){
-        BDDMockito.when(repository.findById(ArgumentMatchers.anyLong()))
-                .thenReturn(Mono.empty());
+        BDDMockito.when(repository.updateName(ArgumentMatchers.anyLong(), ArgumentMatchers.anyString()))
+                .thenReturn(Mono.just(0));
 
         StepVerifier.create(service.update(AnimeCreator.createValidAnime()))
                 .expectSubscription()
                 .expectError(ResponseStatusException.class)
                 .verify();
     }
+
+    /** Takes every limiter slot until the returned sinks are completed. */
+    private List<Sinks.Empty<Void>> occupyLimiter(){
+        List<Sinks.Empty<Void>> calls = new ArrayList<>();
+        for (int i = limiter.getInFlight(); i < limiter.getLimit(); i++) {
+            Sinks.Empty<Void> call = Sinks.empty();
+            limiter.limit(call.asMono()).subscribe();
+            calls.add(call);
+        }
+        return calls;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.publisher.PublisherProbe;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RepositoryConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private final AnimeProperties.ConcurrencyLimit config = new AnimeProperties.ConcurrencyLimit();
+    private final RepositoryConcurrencyLimiter limiter = new RepositoryConcurrencyLimiter(config, registry, clock::get);
+
+    @Test
+    @DisplayName("limit fails with 503 without running the call once the limit is in flight, until a call ends")
+    public void limit_Rejects_WhenLimitIsInFlight(){
+        List<Disposable> running = new ArrayList<>();
+        for (int i = 0; i < config.getInitialLimit(); i++) {
+            running.add(limiter.limit(Mono.never()).subscribe());
+        }
+        PublisherProbe<Integer> call = PublisherProbe.of(Mono.just(1));
+
+        StepVerifier.create(limiter.limit(call.mono()))
+                .expectErrorMatches(error -> error instanceof ResponseStatusException ex
+                        && ex.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+                .verify();
+        call.assertWasNotSubscribed();
+        Assertions.assertEquals(1.0, registry.get(RepositoryConcurrencyLimiter.REJECTED_METRIC).counter().count());
+        Assertions.assertEquals(20.0, registry.get(RepositoryConcurrencyLimiter.IN_FLIGHT_METRIC).gauge().value());
+
+        running.get(0).dispose();
+
+        StepVerifier.create(limiter.limit(Flux.just(1, 2)))
+                .expectNext(1, 2)
+                .verifyComplete();
+        Assertions.assertEquals(config.getInitialLimit() - 1, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("limit grows while round trips stay at the no-load time and the limit is in use")
+    public void limit_Grows_WhenRoundTripsStayFast(){
+        roundTrips(1, Duration.ofMillis(10));
+        roundTrips(20, Duration.ofMillis(10));
+
+        Assertions.assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit());
+        Assertions.assertEquals(limiter.getLimit(), registry.get(RepositoryConcurrencyLimiter.LIMIT_METRIC).gauge().value());
+    }
+
+    @Test
+    @DisplayName("limit does not grow while less than half of it is in use")
+    public void limit_StaysPut_WhenMostlyIdle(){
+        roundTrips(1, Duration.ofMillis(10));
+        for (int i = 0; i < 100; i++) {
+            roundTrips(5, Duration.ofMillis(10));
+        }
+
+        Assertions.assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("limit shrinks as calls queue up and round trips grow past the no-load time")
+    public void limit_Shrinks_WhenRoundTripsGrow(){
+        roundTrips(1, Duration.ofMillis(10));
+        roundTrips(20, Duration.ofMillis(100));
+
+        Assertions.assertTrue(limiter.getLimit() < 20, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("limit shrinks on overload errors down to the minimum, and ignores other errors")
+    public void limit_ShrinksOnOverloadErrorsOnly(){
+        StepVerifier.create(limiter.limit(Mono.error(new IllegalArgumentException())))
+                .verifyError(IllegalArgumentException.class);
+        Assertions.assertEquals(20, limiter.getLimit());
+
+        StepVerifier.create(limiter.limit(Mono.error(new TimeoutException())))
+                .verifyError(TimeoutException.class);
+        Assertions.assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            limiter.limit(Mono.error(new TimeoutException())).subscribe(null, error -> {});
+        }
+        Assertions.assertEquals(config.getMinLimit(), limiter.getLimit());
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("admit holds a slot for the whole transaction without taking it as a round trip")
+    public void admit_HoldsSlot_WithoutSampling(){
+        roundTrips(1, Duration.ofMillis(10));
+        List<Sinks.Empty<Void>> transactions = new ArrayList<>();
+        for (int i = 0; i < config.getInitialLimit(); i++) {
+            Sinks.Empty<Void> sink = Sinks.empty();
+            limiter.admit(sink.asMono()).subscribe();
+            transactions.add(sink);
+        }
+
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        transactions.forEach(Sinks.Empty::tryEmitEmpty);
+
+        Assertions.assertEquals(config.getInitialLimit(), limiter.getLimit());
+        Assertions.assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("limit runs every call when disabled")
+    public void limit_PassesThrough_WhenDisabled(){
+        config.setEnabled(false);
+        for (int i = 0; i < config.getInitialLimit(); i++) {
+            limiter.limit(Mono.never()).subscribe();
+        }
+
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    private void roundTrips(int calls, Duration rtt){
+        List<Sinks.Empty<Void>> sinks = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            Sinks.Empty<Void> sink = Sinks.empty();
+            limiter.limit(sink.asMono()).subscribe(null, error -> {});
+            sinks.add(sink);
+        }
+        clock.addAndGet(rtt.toNanos());
+        sinks.forEach(Sinks.Empty::tryEmitEmpty);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.AccessToken;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+class TokenServiceTest {
+
+    private static final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+
+    private final AnimeProperties properties = new AnimeProperties();
+
+    private final Authentication login = UsernamePasswordAuthenticationToken.authenticated("moon", null,
+            AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+    private TokenService serviceAt(Instant instant) {
+        properties.getSecurity().getToken().setSecret("0123456789abcdef0123456789abcdef");
+        return new TokenService(properties, Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("verify returns the username and authorities of an issued token")
+    public void verify_ReturnsAuthentication_OfIssuedToken(){
+        TokenService service = serviceAt(NOW);
+        AccessToken token = service.issue(login);
+
+        Authentication authentication = service.verify(token.accessToken()).orElseThrow();
+
+        Assertions.assertEquals("moon", authentication.getName());
+        Assertions.assertEquals(login.getAuthorities(), authentication.getAuthorities());
+        Assertions.assertEquals(TokenService.TOKEN_TYPE, token.tokenType());
+        Assertions.assertEquals(properties.getSecurity().getToken().getTtl().toSeconds(), token.expiresIn());
+    }
+
+    @Test
+    @DisplayName("verify rejects a token whose payload was changed")
+    public void verify_RejectsTamperedToken(){
+        TokenService service = serviceAt(NOW);
+        String token = service.issue(login).accessToken();
+        String other = service.issue(UsernamePasswordAuthenticationToken.authenticated("prome", null,
+                AuthorityUtils.createAuthorityList("ROLE_USER"))).accessToken();
+
+        String forged = other.substring(0, other.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        Assertions.assertTrue(service.verify(forged).isEmpty());
+    }
+
+    @Test
+    @DisplayName("verify rejects an expired token")
+    public void verify_RejectsExpiredToken(){
+        String token = serviceAt(NOW).issue(login).accessToken();
+
+        Assertions.assertTrue(serviceAt(NOW.plus(Duration.ofHours(1))).verify(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("verify rejects malformed tokens")
+    public void verify_RejectsMalformedTokens(){
+        TokenService service = serviceAt(NOW);
+
+        Assertions.assertTrue(service.verify("").isEmpty());
+        Assertions.assertTrue(service.verify("no-signature.").isEmpty());
+        Assertions.assertTrue(service.verify("%%%.%%%").isEmpty());
+    }
+
+    @Test
+    @DisplayName("TokenService refuses a secret shorter than 32 bytes")
+    public void constructor_RefusesShortSecret(){
+        properties.getSecurity().getToken().setSecret("short");
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TokenService(properties));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.service;
+
+import com.example.configuration.AnimeProperties;
+import com.example.domain.AnimeUser;
+import com.example.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Set;
+
+@ExtendWith(SpringExtension.class)
+class UserServiceTest {
+
+    private UserService service;
+
+    @Mock
+    private UserRepository repository;
+
+    private final AnimeUser user = new AnimeUser(1, "Mehedi", "moon", "{noop}secret", "ROLE_USER,ROLE_ADMIN");
+
+    @BeforeEach
+    public void setUpMock(){
+        service = new UserService(repository,
+                new RepositoryConcurrencyLimiter(new AnimeProperties(), new SimpleMeterRegistry()), new AnimeProperties());
+
+        BDDMockito.when(repository.findByUsername("moon"))
+                .thenReturn(Mono.just(user));
+    }
+
+    @Test
+    @DisplayName("findByUsername serves repeated lookups from the cache")
+    public void findByUsername_ServesRepeatedLookups_FromCache(){
+        StepVerifier.create(service.findByUsername("moon").then(service.findByUsername("moon")))
+                .expectSubscription()
+                .expectNext(user)
+                .verifyComplete();
+
+        BDDMockito.verify(repository, Mockito.times(1)).findByUsername("moon");
+    }
+
+    @Test
+    @DisplayName("findByUsername returns empty mono when the user doesn't exists")
+    public void findByUsername_ReturnEmptyMono_WhenUserDoesNotExist(){
+        BDDMockito.when(repository.findByUsername("prome"))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(service.findByUsername("prome"))
+                .expectSubscription()
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("evict makes the next lookup read the user again")
+    public void evict_ReloadsUser_OnNextLookup(){
+        service.findByUsername("moon").block();
+        service.evict("moon");
+        service.findByUsername("moon").block();
+
+        BDDMockito.verify(repository, Mockito.times(2)).findByUsername("moon");
+    }
+
+    @Test
+    @DisplayName("getAuthorities returns the authorities parsed when the user was loaded")
+    public void getAuthorities_ReturnsParsedAuthorities(){
+        Assertions.assertEquals(Set.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")),
+                user.getAuthorities());
+        Assertions.assertSame(user.getAuthorities(), user.getAuthorities());
+    }
+}